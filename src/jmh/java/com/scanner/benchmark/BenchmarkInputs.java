@@ -0,0 +1,67 @@
+package com.scanner.benchmark;
+
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_COLOR;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
+import static org.bytedeco.opencv.global.opencv_imgproc.INTER_CUBIC;
+import static org.bytedeco.opencv.global.opencv_imgproc.resize;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+
+/*
+ * Gambar input untuk benchmark:
+ * - sample.png, sample2.jpg, sample3.jpg dari root proyek
+ *   (folder bisa diganti dengan -Dscanner.benchmark.dir=...)
+ * - 4k   : sample2.jpg diperbesar ke 3840 x 2160
+ * - 12mp : sample2.jpg diperbesar ke 4000 x 3000 (resolusi kamera ponsel umum)
+ */
+final class BenchmarkInputs {
+
+    static final String ALL = "sample.png,sample2.jpg,sample3.jpg,4k,12mp";
+
+    private BenchmarkInputs() {
+    }
+
+    static Mat load(String name) {
+        switch (name) {
+            case "4k":
+                return upscale("sample2.jpg", 3840, 2160);
+            case "12mp":
+                return upscale("sample2.jpg", 4000, 3000);
+            default:
+                return read(name);
+        }
+    }
+
+    private static Mat read(String name) {
+        Path path = Paths.get(System.getProperty("scanner.benchmark.dir", ".")).resolve(name);
+        Mat mat = imread(path.toString(), IMREAD_COLOR);
+        if (mat == null || mat.empty()) {
+            throw new IllegalStateException("Gagal membaca input benchmark: " + path.toAbsolutePath());
+        }
+        return mat;
+    }
+
+    private static Mat upscale(String name, int width, int height) {
+        Mat source = read(name);
+        Mat result = new Mat();
+        resize(source, result, new Size(width, height), 0, 0, INTER_CUBIC);
+        source.release();
+        return result;
+    }
+
+    /*
+     * Pipeline mencetak log untuk setiap scan; di JVM benchmark log tersebut dibuang
+     * agar output JMH tetap terbaca dan I/O konsol tidak ikut terukur.
+     */
+    static void silenceLogs() {
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(discard);
+        System.setErr(discard);
+    }
+}
@@ -0,0 +1,35 @@
+package com.scanner.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Menjalankan semua benchmark dengan GC profiler (alokasi per operasi) dan
+ * menyimpan hasil sebagai JSON di target/jmh-result.json agar bisa dibandingkan
+ * antar run (misalnya dengan jmh.morethan.io atau script sendiri).
+ *
+ * Argumen JMH biasa tetap berlaku, misalnya:
+ *   FilterBenchmark -p input=sample.png,12mp -p filter=Ditingkatkan -rf csv -rff hasil.csv
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include("com\\.scanner\\.benchmark\\..*Benchmark");
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON).result("target/jmh-result.json");
+        }
+
+        new Runner(options.build()).run();
+    }
+}
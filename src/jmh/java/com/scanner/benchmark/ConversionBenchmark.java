@@ -0,0 +1,65 @@
+package com.scanner.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scanner.processor.MatImageConverter;
+
+import javafx.scene.image.Image;
+
+/*
+ * Konversi JavaFX Image <-> Mat yang dipakai GUI (imageToMat / matToImage).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+    @Param({ BenchmarkInputs.ALL })
+    public String input;
+
+    private Mat image;
+    private Image fxImage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkInputs.silenceLogs();
+        image = BenchmarkInputs.load(input);
+        fxImage = MatImageConverter.toImage(image);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        image.release();
+    }
+
+    @Benchmark
+    public int imageToMat() {
+        Mat mat = MatImageConverter.toMat(fxImage);
+        int rows = mat.rows();
+        mat.release();
+        return rows;
+    }
+
+    @Benchmark
+    public Image matToImage() {
+        return MatImageConverter.toImage(image);
+    }
+}
@@ -0,0 +1,70 @@
+package com.scanner.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scanner.processor.ContourCornerDetector;
+import com.scanner.processor.CornerQuad;
+import com.scanner.processor.DetectionResult;
+import com.scanner.processor.EdgeDetector;
+import com.scanner.processor.HoughCornerDetector;
+import com.scanner.processor.ProcessingProfile;
+
+/*
+ * Pencarian sudut per strategi pada edge map yang sudah dihitung sekali di setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class CornerSearchBenchmark {
+
+    @Param({ BenchmarkInputs.ALL })
+    public String input;
+
+    @Param({ "BALANCED" })
+    public ProcessingProfile profile;
+
+    private final HoughCornerDetector hough = new HoughCornerDetector();
+    private final ContourCornerDetector contour = new ContourCornerDetector();
+    private DetectionResult detection;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkInputs.silenceLogs();
+        Mat image = BenchmarkInputs.load(input);
+        detection = new EdgeDetector().detect(image, profile);
+        image.release();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        detection.close();
+    }
+
+    @Benchmark
+    public CornerQuad hough() {
+        return hough.detect(detection, profile);
+    }
+
+    @Benchmark
+    public CornerQuad contour() {
+        return contour.detect(detection, profile);
+    }
+}
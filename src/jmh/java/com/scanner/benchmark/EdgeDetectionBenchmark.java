@@ -0,0 +1,84 @@
+package com.scanner.benchmark;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.INTER_AREA;
+import static org.bytedeco.opencv.global.opencv_imgproc.resize;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scanner.processor.DetectionResult;
+import com.scanner.processor.EdgeDetector;
+import com.scanner.processor.ProcessingProfile;
+
+/*
+ * detectEdges: edge map saja, pada gambar yang sudah diperkecil ke ukuran deteksi profil
+ *              (sama seperti di dalam pipeline)
+ * detect     : deteksi lengkap dari resolusi penuh (downscale, edge map, strategi sudut,
+ *              refine sub-pixel)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class EdgeDetectionBenchmark {
+
+    @Param({ BenchmarkInputs.ALL })
+    public String input;
+
+    @Param({ "BALANCED" })
+    public ProcessingProfile profile;
+
+    private final EdgeDetector edgeDetector = new EdgeDetector();
+    private Mat image;
+    private Mat detectionImage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkInputs.silenceLogs();
+        image = BenchmarkInputs.load(input);
+
+        double scale = Math.min(1.0, (double) profile.getDetectionMaxSize() / Math.max(image.cols(), image.rows()));
+        detectionImage = new Mat();
+        resize(image, detectionImage,
+                new Size((int) Math.round(image.cols() * scale), (int) Math.round(image.rows() * scale)),
+                0, 0, INTER_AREA);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        detectionImage.release();
+        image.release();
+    }
+
+    @Benchmark
+    public int detectEdges() {
+        Mat edges = edgeDetector.detectEdges(detectionImage, profile);
+        int rows = edges.rows();
+        edges.release();
+        return rows;
+    }
+
+    @Benchmark
+    public boolean detect() {
+        try (DetectionResult result = edgeDetector.detect(image, profile)) {
+            return result.isSuccessful();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.scanner.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point2f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scanner.export.ExportHandler;
+import com.scanner.processor.EdgeDetector;
+import com.scanner.processor.ImageFilter;
+import com.scanner.processor.PerspectiveCorrector;
+
+/*
+ * Menyimpan hasil scan (koreksi perspektif + filter) ke file sementara per format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    @Param({ BenchmarkInputs.ALL })
+    public String input;
+
+    @Param({ "PNG", "JPEG", "PDF" })
+    public String format;
+
+    @Param({ "Asli", "Hitam Putih" })
+    public String filter;
+
+    private final ExportHandler exportHandler = new ExportHandler();
+    private Mat scanned;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkInputs.silenceLogs();
+        Mat image = BenchmarkInputs.load(input);
+        Point2f[] corners = new EdgeDetector().detectDocumentCorners(image);
+        if (corners == null) {
+            throw new IllegalStateException("Sudut tidak terdeteksi pada " + input);
+        }
+        Mat corrected = new PerspectiveCorrector().correctPerspective(image, corners);
+        scanned = new ImageFilter().applyFilter(corrected, filter);
+        corrected.release();
+        image.release();
+
+        output = Files.createTempFile("scanner-benchmark", "." + format.toLowerCase()).toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scanned.release();
+        output.delete();
+    }
+
+    @Benchmark
+    public boolean saveMat() {
+        return exportHandler.saveMat(scanned, output, format);
+    }
+}
@@ -0,0 +1,73 @@
+package com.scanner.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point2f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scanner.processor.EdgeDetector;
+import com.scanner.processor.ImageFilter;
+import com.scanner.processor.PerspectiveCorrector;
+import com.scanner.processor.ProcessingProfile;
+
+/*
+ * Filter dijalankan pada hasil koreksi perspektif, sama seperti di pipeline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+
+    @Param({ BenchmarkInputs.ALL })
+    public String input;
+
+    @Param({ "Asli", "Hitam Putih", "Hitam Putih Adaptif", "Ditingkatkan" })
+    public String filter;
+
+    @Param({ "BALANCED" })
+    public ProcessingProfile profile;
+
+    private final ImageFilter imageFilter = new ImageFilter();
+    private Mat corrected;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkInputs.silenceLogs();
+        Mat image = BenchmarkInputs.load(input);
+        Point2f[] corners = new EdgeDetector().detectDocumentCorners(image);
+        if (corners == null) {
+            throw new IllegalStateException("Sudut tidak terdeteksi pada " + input);
+        }
+        corrected = new PerspectiveCorrector().correctPerspective(image, corners);
+        image.release();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        corrected.release();
+    }
+
+    @Benchmark
+    public int applyFilter() {
+        Mat filtered = imageFilter.applyFilter(corrected, filter, profile);
+        int rows = filtered.rows();
+        filtered.release();
+        return rows;
+    }
+}
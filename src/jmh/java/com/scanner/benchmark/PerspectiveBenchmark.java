@@ -0,0 +1,61 @@
+package com.scanner.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point2f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scanner.processor.EdgeDetector;
+import com.scanner.processor.PerspectiveCorrector;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class PerspectiveBenchmark {
+
+    @Param({ BenchmarkInputs.ALL })
+    public String input;
+
+    private final PerspectiveCorrector perspectiveCorrector = new PerspectiveCorrector();
+    private Mat image;
+    private Point2f[] corners;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkInputs.silenceLogs();
+        image = BenchmarkInputs.load(input);
+        corners = new EdgeDetector().detectDocumentCorners(image);
+        if (corners == null) {
+            throw new IllegalStateException("Sudut tidak terdeteksi pada " + input);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        image.release();
+    }
+
+    @Benchmark
+    public int correctPerspective() {
+        Mat corrected = perspectiveCorrector.correctPerspective(image, corners);
+        int rows = corrected.rows();
+        corrected.release();
+        return rows;
+    }
+}
@@ -0,0 +1,440 @@
+package com.scanner.app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.bytedeco.opencv.global.opencv_core.setNumThreads;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import com.scanner.export.ExportHandler;
+import com.scanner.export.PdfDocumentWriter;
+import com.scanner.processor.FallbackCornerDetector;
+import com.scanner.processor.FilterPresets;
+import com.scanner.processor.MatPool;
+import com.scanner.processor.ProcessingProfile;
+import com.scanner.processor.ScanOptions;
+import com.scanner.processor.ScannerProcessor;
+
+/*
+ * Entry point headless untuk memproses banyak gambar sekaligus.
+ * Tidak menyentuh JavaFX sama sekali sehingga bisa dijalankan di server tanpa display.
+ *
+ * Penggunaan:
+ *   BatchScannerApp <input-dir | -> <output-dir> [--filter Asli] [--format PNG] [--profile balanced]
+ *                   [--threads N] [--merge-pdf hasil.pdf] [--jpeg-quality 85] [--fixed-rig]
+ *                   [--corners x1,y1,x2,y2,x3,y3,x4,y4]
+ *
+ * Jika input adalah "-", daftar file dibaca dari stdin (satu path per baris).
+ * Dengan --merge-pdf semua scan digabung ke satu PDF di output-dir, urut sesuai input.
+ * Dengan --fixed-rig (kamera tetap) sudut dari gambar pertama dikunci dan dipakai untuk
+ * gambar berikutnya selama posisi baki tidak berubah. --corners memberi sudut manual (relatif 0..1)
+ * untuk gambar yang sudutnya tidak terdeteksi.
+ */
+public class BatchScannerApp implements AutoCloseable {
+
+    private static final List<String> SUPPORTED_EXTENSIONS = List.of(".png", ".jpg", ".jpeg");
+
+    private final ScannerProcessor scannerProcessor = new ScannerProcessor();
+
+    private final Path outputDir;
+    private final String format;
+    private final ScanOptions options;
+
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public BatchScannerApp(Path outputDir, String filterType, String format, ProcessingProfile profile) {
+        this(outputDir, filterType, format, profile, false);
+    }
+
+    public BatchScannerApp(Path outputDir, String filterType, String format, ProcessingProfile profile,
+            boolean fixedRig) {
+        this.outputDir = outputDir;
+        this.format = format;
+        this.options = new ScanOptions().setFilterType(filterType).setOutputFormat(format).setProfile(profile)
+                .setFixedRig(fixedRig);
+    }
+
+    public static void main(String[] args) throws Exception {
+        // PDF export memakai BufferedImage, pastikan AWT tidak mencari display
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+
+        String input = args[0];
+        Path outputDir = Paths.get(args[1]);
+        String filterType = "Asli";
+        String format = "PNG";
+        ProcessingProfile profile = ProcessingProfile.BALANCED;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String mergePdf = null;
+        int jpegQuality = PdfDocumentWriter.DEFAULT_JPEG_QUALITY;
+        boolean fixedRig = false;
+
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter":
+                    filterType = requireFilter(args, ++i);
+                    break;
+                case "--format":
+                    format = requireFormat(args, ++i);
+                    break;
+                case "--profile":
+                    profile = requireProfile(args, ++i);
+                    break;
+                case "--threads":
+                    threads = Math.max(1, requireInt(args, ++i));
+                    break;
+                case "--merge-pdf":
+                    mergePdf = requireValue(args, ++i);
+                    break;
+                case "--jpeg-quality":
+                    jpegQuality = Math.max(1, Math.min(100, requireInt(args, ++i)));
+                    break;
+                case "--fixed-rig":
+                    fixedRig = true;
+                    break;
+                case "--corners":
+                    // Dibaca FallbackCornerDetector saat ScannerProcessor dibuat (dan ikut kunci cache)
+                    System.setProperty(FallbackCornerDetector.MANUAL_PROPERTY, requireCorners(args, ++i));
+                    break;
+                default:
+                    System.err.println("Opsi tidak dikenal: " + args[i]);
+                    printUsage();
+                    System.exit(2);
+            }
+        }
+
+        Path inputRoot = "-".equals(input) ? null : Paths.get(input);
+        List<Path> files = inputRoot == null ? readFileList() : listImages(inputRoot);
+        if (files.isEmpty()) {
+            System.err.println("Tidak ada gambar untuk diproses");
+            System.exit(1);
+        }
+
+        Files.createDirectories(outputDir);
+
+        boolean allSucceeded;
+        try (BatchScannerApp app = new BatchScannerApp(outputDir, filterType, format, profile, fixedRig)) {
+            allSucceeded = mergePdf != null
+                    ? app.runMerged(files, threads, outputDir.resolve(mergePdf), jpegQuality)
+                    : app.run(inputRoot, files, threads);
+        }
+        System.exit(allSucceeded ? 0 : 1);
+    }
+
+    public boolean run(Path inputRoot, List<Path> files, int threads) throws InterruptedException {
+        /*
+         * Setiap worker sudah memproses satu gambar per core, jadi thread pool internal
+         * OpenCV dimatikan agar tidak terjadi oversubscription.
+         */
+        setNumThreads(1);
+
+        /*
+         * Pool dengan antrian terbatas: jika antrian penuh, thread pemanggil ikut memproses
+         * sehingga ribuan file tidak menumpuk sebagai task di memori.
+         */
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        System.out.println("Memproses " + files.size() + " gambar dengan " + threads + " thread...");
+        long start = System.nanoTime();
+
+        Set<Path> outputs = new HashSet<>();
+        for (Path file : files) {
+            Path relative = inputRoot != null ? inputRoot.relativize(file) : file.getFileName();
+            Path outputFile = uniqueOutput(file, relative, outputs);
+            executor.execute(() -> processFile(file, outputFile));
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        printSummary(start);
+        return failed.get() == 0;
+    }
+
+    /*
+     * Semua scan digabung ke satu PDF. Gambar diproses paralel, tetapi halaman ditambahkan
+     * sesuai urutan input; paling banyak threads * 2 hasil scan menunggu di memori.
+     * Gambar yang gagal dilewati (halaman lain tetap ditulis).
+     */
+    public boolean runMerged(List<Path> files, int threads, Path pdfFile, int jpegQuality)
+            throws InterruptedException {
+        setNumThreads(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        System.out.println("Memproses " + files.size() + " gambar ke " + pdfFile + " dengan " + threads + " thread...");
+        long start = System.nanoTime();
+
+        Deque<PendingPage> pending = new ArrayDeque<>();
+        try (PdfDocumentWriter writer = new PdfDocumentWriter(pdfFile.toFile(), jpegQuality, threads)) {
+            for (Path file : files) {
+                long submitted = System.nanoTime();
+                pending.add(new PendingPage(file, submitted,
+                        executor.submit(() -> scannerProcessor.processFile(file.toFile(), options))));
+                while (pending.size() > threads * 2) {
+                    appendPage(writer, pending.poll());
+                }
+            }
+            while (!pending.isEmpty()) {
+                appendPage(writer, pending.poll());
+            }
+            writer.finish();
+            System.out.println("PDF ditulis: " + pdfFile + " (" + writer.getPageCount() + " halaman)");
+        } catch (IOException e) {
+            System.err.println("Gagal menulis PDF " + pdfFile + ": " + e.getMessage());
+            discard(pending, executor);
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        printSummary(start);
+        return failed.get() == 0;
+    }
+
+    @Override
+    public void close() {
+        scannerProcessor.close();
+    }
+
+    /*
+     * Setelah PDF gagal ditulis: scan yang belum mulai dibatalkan, scan yang sedang berjalan
+     * atau sudah selesai ditunggu supaya Mat hasilnya di-release.
+     */
+    private static void discard(Deque<PendingPage> pending, ExecutorService executor) throws InterruptedException {
+        for (Runnable task : executor.shutdownNow()) {
+            ((Future<?>) task).cancel(false);
+        }
+        for (PendingPage page : pending) {
+            try {
+                page.result.get().release();
+            } catch (ExecutionException | CancellationException e) {
+                // Tidak ada hasil yang perlu di-release
+            }
+        }
+        pending.clear();
+    }
+
+    private void appendPage(PdfDocumentWriter writer, PendingPage page) throws IOException, InterruptedException {
+        Mat filtered;
+        try {
+            filtered = page.result.get();
+        } catch (ExecutionException e) {
+            reportFailure(page.file, e.getCause().getMessage(), page.start);
+            return;
+        }
+
+        try {
+            writer.appendPage(filtered);
+        } finally {
+            filtered.release();
+        }
+        succeeded.incrementAndGet();
+        System.out.printf(Locale.ROOT, "OK     %s -> halaman %d (%d ms)%n",
+                page.file, succeeded.get(), (System.nanoTime() - page.start) / 1_000_000);
+    }
+
+    private void printSummary(long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int total = succeeded.get() + failed.get();
+        System.out.printf(Locale.ROOT,
+                "Selesai: %d berhasil, %d gagal dari %d gambar dalam %.2f detik (%.2f gambar/detik)%n",
+                succeeded.get(), failed.get(), total, seconds, seconds > 0 ? total / seconds : 0.0);
+        System.out.println("Strategi deteksi sudut:");
+        System.out.print(scannerProcessor.getCornerDetectors().report());
+        System.out.print(MatPool.shared().report());
+    }
+
+    private void processFile(Path inputFile, Path outputFile) {
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(outputFile.getParent());
+            scannerProcessor.processFile(inputFile.toFile(), outputFile.toFile(), options);
+
+            succeeded.incrementAndGet();
+            System.out.printf(Locale.ROOT, "OK     %s -> %s (%d ms)%n",
+                    inputFile, outputFile, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            reportFailure(inputFile, e.getMessage(), start);
+        }
+    }
+
+    private void reportFailure(Path inputFile, String reason, long start) {
+        failed.incrementAndGet();
+        System.out.printf(Locale.ROOT, "GAGAL  %s: %s (%d ms)%n",
+                inputFile, reason, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /*
+     * Nama output bisa sama untuk input berbeda (file bernama sama dari direktori lain di mode
+     * stdin, atau scan.jpg dan scan.png di direktori yang sama). Input berikutnya diberi akhiran
+     * _2, _3, ... sesuai urutan input supaya tidak saling menimpa.
+     */
+    private Path uniqueOutput(Path file, Path relative, Set<Path> outputs) {
+        Path outputFile = resolveOutput(relative, "");
+        Path candidate = outputFile;
+        for (int n = 2; !outputs.add(candidate.toAbsolutePath().normalize()); n++) {
+            candidate = resolveOutput(relative, "_" + n);
+        }
+        if (candidate != outputFile) {
+            System.out.println("Nama output " + outputFile.getFileName() + " sudah dipakai, " + file
+                    + " ditulis ke " + candidate.getFileName());
+        }
+        return candidate;
+    }
+
+    private Path resolveOutput(Path relative, String suffix) {
+        String name = relative.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String baseName = dot > 0 ? name.substring(0, dot) : name;
+        String outputName = baseName + suffix + "." + format.toLowerCase(Locale.ROOT);
+        Path parent = relative.getParent();
+        return parent != null ? outputDir.resolve(parent).resolve(outputName) : outputDir.resolve(outputName);
+    }
+
+    private static final class PendingPage {
+        final Path file;
+        final long start;
+        final Future<Mat> result;
+
+        PendingPage(Path file, long start, Future<Mat> result) {
+            this.file = file;
+            this.start = start;
+            this.result = result;
+        }
+    }
+
+    private static List<Path> listImages(Path root) throws IOException {
+        try (Stream<Path> stream = Files.walk(root)) {
+            return stream.filter(Files::isRegularFile)
+                    .filter(BatchScannerApp::isSupportedImage)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static List<Path> readFileList() throws IOException {
+        List<Path> files = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty()) {
+                files.add(Paths.get(line));
+            }
+        }
+        return files;
+    }
+
+    private static boolean isSupportedImage(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return SUPPORTED_EXTENSIONS.stream().anyMatch(name::endsWith);
+    }
+
+    private static String requireValue(String[] args, int index) {
+        if (index >= args.length) {
+            System.err.println("Opsi " + args[index - 1] + " memerlukan nilai");
+            printUsage();
+            System.exit(2);
+        }
+        return args[index];
+    }
+
+    private static String requireFilter(String[] args, int index) {
+        String value = requireValue(args, index);
+        if (!FilterPresets.contains(value)) {
+            System.err.println("Preset filter tidak dikenal: " + value);
+            printUsage();
+            System.exit(2);
+        }
+        return value;
+    }
+
+    private static String requireFormat(String[] args, int index) {
+        String value = requireValue(args, index).toUpperCase(Locale.ROOT);
+        if (!ExportHandler.isSupported(value)) {
+            System.err.println("Format tidak didukung: " + value + " (pilihan: "
+                    + String.join(", ", ExportHandler.FORMATS) + ")");
+            printUsage();
+            System.exit(2);
+        }
+        return value;
+    }
+
+    private static String requireCorners(String[] args, int index) {
+        String value = requireValue(args, index);
+        try {
+            FallbackCornerDetector.parseCorners(value);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(2);
+        }
+        return value;
+    }
+
+    private static ProcessingProfile requireProfile(String[] args, int index) {
+        try {
+            return ProcessingProfile.fromName(requireValue(args, index));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(2);
+            return null;
+        }
+    }
+
+    private static int requireInt(String[] args, int index) {
+        String value = requireValue(args, index);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Opsi " + args[index - 1] + " memerlukan angka, bukan \"" + value + "\"");
+            printUsage();
+            System.exit(2);
+            return 0;
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Penggunaan: BatchScannerApp <input-dir | -> <output-dir> "
+                + "[--filter <preset>] [--format PNG|JPEG|PDF] "
+                + "[--profile fast|balanced|quality] [--threads N] [--merge-pdf hasil.pdf] [--jpeg-quality 1-100] "
+                + "[--fixed-rig] [--corners x1,y1,x2,y2,x3,y3,x4,y4]");
+        System.err.println("Preset filter: " + String.join(", ", FilterPresets.names()));
+        System.err.println("Gunakan \"-\" sebagai input untuk membaca daftar file dari stdin.");
+        System.err.println("--corners: sudut relatif 0..1 (kiri atas, kanan atas, kanan bawah, kiri bawah) "
+                + "untuk gambar yang sudutnya tidak terdeteksi.");
+    }
+}
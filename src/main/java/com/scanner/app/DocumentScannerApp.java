@@ -9,8 +9,12 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import com.scanner.controller.ImageController;
+
 public class DocumentScannerApp extends Application {
 
+    private ImageController controller;
+
     static {
         // Load OpenCV native library
         Loader.load(opencv_java.class);
@@ -21,6 +25,7 @@ public class DocumentScannerApp extends Application {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/main_view.fxml"));
             Parent root = loader.load();
+            controller = loader.getController();
             
             primaryStage.setTitle("Document Scanner");
             primaryStage.setScene(new Scene(root));
@@ -31,6 +36,13 @@ public class DocumentScannerApp extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.shutdown();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,173 @@
+package com.scanner.app;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.FrameGrabber;
+import org.bytedeco.javacv.OpenCVFrameGrabber;
+
+import com.scanner.export.ExportHandler;
+import com.scanner.processor.FilterPresets;
+import com.scanner.processor.ProcessingProfile;
+import com.scanner.processor.ScanOptions;
+import com.scanner.processor.ScannerProcessor;
+import com.scanner.processor.VideoScanner;
+
+/*
+ * Entry point headless untuk scan dari video: file video (FFmpeg) atau kamera lokal.
+ * Halaman di-capture otomatis setiap kali dokumen diam beberapa frame (lihat VideoScanner).
+ *
+ * Penggunaan:
+ *   VideoScannerApp <video-file | device:N> <output-dir> [--filter Asli] [--format PNG]
+ *                   [--profile balanced] [--detect-every 15] [--stable 10]
+ *
+ * Halaman ditulis sebagai page_001.png, page_002.png, ... di output-dir.
+ */
+public class VideoScannerApp {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+
+        String input = args[0];
+        Path outputDir = Paths.get(args[1]);
+        String filterType = "Asli";
+        String format = "PNG";
+        ProcessingProfile profile = ProcessingProfile.BALANCED;
+        int detectEvery = 15;
+        int stableFrames = 10;
+
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter":
+                    filterType = requireFilter(args, ++i);
+                    break;
+                case "--format":
+                    format = requireFormat(args, ++i);
+                    break;
+                case "--profile":
+                    profile = requireProfile(args, ++i);
+                    break;
+                case "--detect-every":
+                    detectEvery = Math.max(1, requireInt(args, ++i));
+                    break;
+                case "--stable":
+                    stableFrames = Math.max(1, requireInt(args, ++i));
+                    break;
+                default:
+                    System.err.println("Opsi tidak dikenal: " + args[i]);
+                    printUsage();
+                    System.exit(2);
+            }
+        }
+
+        Files.createDirectories(outputDir);
+        ScanOptions options = new ScanOptions().setFilterType(filterType).setOutputFormat(format).setProfile(profile);
+        ExportHandler exportHandler = new ExportHandler();
+        String outputFormat = format;
+        String extension = format.toLowerCase(Locale.ROOT);
+
+        long start = System.nanoTime();
+        VideoScanner scanner;
+        int pages;
+        try (ScannerProcessor processor = new ScannerProcessor()) {
+            scanner = new VideoScanner(processor, options, detectEvery, stableFrames);
+            pages = scanner.scan(createGrabber(input), (pageNumber, frameNumber, page) -> {
+                File outputFile = outputDir.resolve(
+                        String.format(Locale.ROOT, "page_%03d.%s", pageNumber, extension)).toFile();
+                try {
+                    if (!exportHandler.saveMat(page, outputFile, outputFormat)) {
+                        System.err.println("Gagal menyimpan " + outputFile);
+                    }
+                } finally {
+                    page.release();
+                }
+            });
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT,
+                "Selesai: %d halaman dari %d frame dalam %.2f detik (%.1f frame/detik, %d deteksi penuh)%n",
+                pages, scanner.getFrameCount(), seconds, seconds > 0 ? scanner.getFrameCount() / seconds : 0.0,
+                scanner.getDetectionCount());
+        System.exit(pages > 0 ? 0 : 1);
+    }
+
+    /*
+     * "device:N" untuk kamera lokal nomor N, selain itu path file video.
+     */
+    private static FrameGrabber createGrabber(String input) {
+        if (input.startsWith("device:")) {
+            return new OpenCVFrameGrabber(Integer.parseInt(input.substring("device:".length())));
+        }
+        return new FFmpegFrameGrabber(input);
+    }
+
+    private static String requireValue(String[] args, int index) {
+        if (index >= args.length) {
+            System.err.println("Opsi " + args[index - 1] + " memerlukan nilai");
+            printUsage();
+            System.exit(2);
+        }
+        return args[index];
+    }
+
+    private static String requireFilter(String[] args, int index) {
+        String value = requireValue(args, index);
+        if (!FilterPresets.contains(value)) {
+            System.err.println("Preset filter tidak dikenal: " + value);
+            printUsage();
+            System.exit(2);
+        }
+        return value;
+    }
+
+    private static String requireFormat(String[] args, int index) {
+        String value = requireValue(args, index).toUpperCase(Locale.ROOT);
+        if (!ExportHandler.isSupported(value)) {
+            System.err.println("Format tidak didukung: " + value + " (pilihan: "
+                    + String.join(", ", ExportHandler.FORMATS) + ")");
+            printUsage();
+            System.exit(2);
+        }
+        return value;
+    }
+
+    private static ProcessingProfile requireProfile(String[] args, int index) {
+        try {
+            return ProcessingProfile.fromName(requireValue(args, index));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(2);
+            return null;
+        }
+    }
+
+    private static int requireInt(String[] args, int index) {
+        String value = requireValue(args, index);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Opsi " + args[index - 1] + " memerlukan angka, bukan \"" + value + "\"");
+            printUsage();
+            System.exit(2);
+            return 0;
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Penggunaan: VideoScannerApp <video-file | device:N> <output-dir> "
+                + "[--filter <preset>] [--format PNG|JPEG|PDF] "
+                + "[--profile fast|balanced|quality] [--detect-every N] [--stable K]");
+        System.err.println("Preset filter: " + String.join(", ", FilterPresets.names()));
+    }
+}
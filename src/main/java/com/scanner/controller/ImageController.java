@@ -1,11 +1,19 @@
 package com.scanner.controller;
 
 import java.io.File;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+import com.scanner.processor.FilterPresets;
+import com.scanner.processor.ImageSource;
 import com.scanner.processor.ScannerProcessor;
 
 import javafx.application.Platform;
 import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ComboBox;
@@ -23,20 +31,53 @@ public class ImageController {
     @FXML private ProgressBar progressBar;
     @FXML private Label statusLabel;
 
+    /*
+     * Satu executor untuk semua pekerjaan latar (muat, scan, simpan). Dua thread daemon:
+     * scan yang sedang dibatalkan boleh selesai di batas tahapnya tanpa menahan scan baru,
+     * dan penyimpanan tidak menunggu scan.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "scanner-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private ScannerProcessor scannerProcessor;
     private int scanCounter = 1;
 
+    // Task terbaru; hanya diakses dari thread FX
+    private Task<Image> currentScan;
+    private Task<Image> currentUpload;
+    // File yang sedang ditampilkan di originalImageView
+    private ImageSource currentSource;
+    // processedImageView sedang menampilkan preview dari currentScan
+    private boolean previewShown;
+
     @FXML
     public void initialize() {
         scannerProcessor = new ScannerProcessor();
 
-        filterComboBox.getItems().addAll("Asli", "Hitam Putih", "Ditingkatkan");
-        filterComboBox.setValue("Asli");
+        filterComboBox.getItems().addAll(FilterPresets.names());
+        filterComboBox.setValue(FilterPresets.ORIGINAL);
         
         exportFormatComboBox.getItems().addAll("PNG", "JPEG", "PDF");
         exportFormatComboBox.setValue("PNG");
     }
 
+    /*
+     * Dipanggil saat aplikasi ditutup. Scan yang masih berjalan diberi waktu berhenti di batas
+     * tahapnya sebelum resource ScannerProcessor (session ONNX) ditutup.
+     */
+    public void shutdown() {
+        EXECUTOR.shutdownNow();
+        try {
+            EXECUTOR.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scannerProcessor.close();
+    }
+
     @FXML
     private void handleUploadImage() {
         FileChooser fileChooser = new FileChooser();
@@ -46,60 +87,120 @@ public class ImageController {
 
         File selectedFile = fileChooser.showOpenDialog(originalImageView.getScene().getWindow());
         if (selectedFile != null) {
+            // Hanya memetakan file dan membaca header; decode dilakukan di task
+            ImageSource source;
+            try {
+                source = ImageSource.open(selectedFile);
+            } catch (RuntimeException e) {
+                showAlert("Gagal Memuat", e.getMessage());
+                return;
+            }
+
+            // Hasil scan gambar lama tidak relevan lagi
+            cancelScan();
+            cancel(currentUpload);
             updateStatus("Memuat gambar...");
             showProgress(true);
-            
-            Task<Void> task = new Task<>() {
+
+            Task<Image> task = new Task<>() {
                 @Override
-                protected Void call() throws Exception {
-                    Image image = new Image(selectedFile.toURI().toString());
-                    Platform.runLater(() -> {
-                        originalImageView.setImage(image);
-                        updateStatus("Gambar berhasil dimuat");
-                        showProgress(false);
-                    });
-                    return null;
+                protected Image call() throws Exception {
+                    // Decode diperkecil untuk tampilan; resolusi penuh baru di-decode saat scan
+                    return scannerProcessor.loadImage(source);
                 }
             };
-            
-            new Thread(task).start();
+            task.setOnSucceeded(event -> {
+                if (task != currentUpload) {
+                    return;
+                }
+                currentSource = source;
+                originalImageView.setImage(task.getValue());
+                updateStatus("Gambar berhasil dimuat");
+                finish();
+            });
+            task.setOnFailed(event -> {
+                if (task != currentUpload) {
+                    return;
+                }
+                showAlert("Gagal Memuat", task.getException().getMessage());
+                updateStatus("Gambar gagal dimuat");
+                finish();
+            });
+
+            currentUpload = task;
+            EXECUTOR.execute(task);
         }
     }
 
     @FXML
     private void handleScan() {
-        if (originalImageView.getImage() == null) {
+        if (currentSource == null) {
             showAlert("Peringatan", "Pilih gambar terlebih dahulu");
             return;
         }
-        
+
+        // Dibaca di thread FX, bukan dari dalam task
+        ImageSource source = currentSource;
+        String selectedFilter = filterComboBox.getValue();
+
+        // Latest wins: scan sebelumnya berhenti di batas tahap berikutnya
+        cancel(currentScan);
         updateStatus("Memproses gambar...");
         showProgress(true);
-        
-        Task<Void> task = new Task<>() {
+
+        /*
+         * Progresif: preview resolusi rendah dikirim lewat updateValue begitu siap,
+         * lalu hasil resolusi penuh menjadi nilai akhir task. Nilai akhir juga lewat listener
+         * value saat state masih RUNNING, jadi preview dikenali dari objeknya, bukan dari state.
+         */
+        AtomicReference<Image> preview = new AtomicReference<>();
+        Task<Image> task = new Task<>() {
             @Override
-            protected Void call() throws Exception {
+            protected Image call() throws Exception {
                 try {
-                    String selectedFilter = filterComboBox.getValue();
-                    Image processedImage = scannerProcessor.processImage(originalImageView.getImage(), selectedFilter);
-                    
-                    Platform.runLater(() -> {
-                        processedImageView.setImage(processedImage);
-                        updateStatus("Pemindaian selesai");
-                        showProgress(false);
-                    });
-                } catch (Exception e) {
-                    Platform.runLater(() -> {
-                        showAlert("Deteksi Gagal", e.getMessage());
-                        updateStatus("Deteksi tepi/koreksi perspektif gagal");
-                        showProgress(false);
-                    });
+                    Image previewImage = scannerProcessor.processPreview(source, selectedFilter);
+                    preview.set(previewImage);
+                    updateValue(previewImage);
+                } catch (CancellationException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    // Deteksi di resolusi rendah bisa gagal walaupun resolusi penuh berhasil
+                    System.err.println("Preview gagal: " + e.getMessage());
                 }
-                return null;
+                return scannerProcessor.processImage(source, selectedFilter);
             }
         };
-        
-        new Thread(task).start();
+        task.valueProperty().addListener((observable, previous, image) -> {
+            if (task != currentScan || image == null || image != preview.get()
+                    || task.getState() != Worker.State.RUNNING) {
+                return;
+            }
+            processedImageView.setImage(image);
+            previewShown = true;
+            updateStatus("Pratinjau siap, memproses resolusi penuh...");
+        });
+        task.setOnSucceeded(event -> {
+            // Hasil yang sudah digantikan scan lebih baru tidak boleh menimpa tampilan
+            if (task != currentScan) {
+                return;
+            }
+            processedImageView.setImage(task.getValue());
+            previewShown = false;
+            updateStatus("Pemindaian selesai");
+            finish();
+        });
+        task.setOnFailed(event -> {
+            if (task != currentScan) {
+                return;
+            }
+            clearPreview();
+            showAlert("Deteksi Gagal", task.getException().getMessage());
+            updateStatus("Deteksi tepi/koreksi perspektif gagal");
+            finish();
+        });
+
+        currentScan = task;
+        EXECUTOR.execute(task);
     }
 
     @FXML
@@ -122,24 +223,78 @@ public class ImageController {
         
         File selectedFile = fileChooser.showSaveDialog(processedImageView.getScene().getWindow());
         if (selectedFile != null) {
-            updateStatus("Menyimpan hasil...");
+            // Gambar yang tampil saat tombol ditekan, walaupun scan baru selesai di tengah penyimpanan.
+            // Jika yang tampil masih preview, tunggu hasil resolusi penuh dari scan yang sama.
+            Image processedImage = processedImageView.getImage();
+            Task<Image> fullResolution = previewShown ? currentScan : null;
+            updateStatus(fullResolution != null ? "Menunggu hasil resolusi penuh..." : "Menyimpan hasil...");
             showProgress(true);
-            
+
             Task<Void> task = new Task<>() {
                 @Override
                 protected Void call() throws Exception {
-                    scannerProcessor.saveImage(processedImageView.getImage(), selectedFile, format);
-                    
-                    Platform.runLater(() -> {
-                        updateStatus("Hasil berhasil disimpan");
-                        showProgress(false);
-                        scanCounter++;
-                    });
+                    Image image = processedImage;
+                    if (fullResolution != null) {
+                        try {
+                            image = fullResolution.get();
+                        } catch (CancellationException e) {
+                            throw new IllegalStateException("Scan dibatalkan sebelum hasil resolusi penuh selesai", e);
+                        }
+                    }
+                    scannerProcessor.saveImage(image, selectedFile, format);
                     return null;
                 }
             };
-            
-            new Thread(task).start();
+            task.setOnSucceeded(event -> {
+                updateStatus("Hasil berhasil disimpan");
+                scanCounter++;
+                finish();
+            });
+            task.setOnFailed(event -> {
+                showAlert("Gagal Menyimpan", task.getException().getMessage());
+                updateStatus("Hasil gagal disimpan");
+                finish();
+            });
+
+            // Penyimpanan tidak pernah dibatalkan
+            EXECUTOR.execute(task);
+        }
+    }
+
+    private void cancelScan() {
+        if (currentScan != null && !currentScan.isDone()) {
+            currentScan.cancel(true);
+            clearPreview();
+        }
+    }
+
+    /*
+     * Preview tanpa hasil resolusi penuh tidak boleh tersisa di layar (dan tidak bisa disimpan).
+     */
+    private void clearPreview() {
+        if (previewShown) {
+            processedImageView.setImage(null);
+            previewShown = false;
+        }
+    }
+
+    /*
+     * Interrupt thread task; ScannerProcessor memeriksanya di setiap batas tahap.
+     */
+    private static void cancel(Task<?> task) {
+        if (task != null && !task.isDone()) {
+            task.cancel(true);
+        }
+    }
+
+    /*
+     * Progress bar disembunyikan hanya jika tidak ada lagi task yang berjalan.
+     */
+    private void finish() {
+        boolean busy = (currentScan != null && !currentScan.isDone())
+                || (currentUpload != null && !currentUpload.isDone());
+        if (!busy) {
+            showProgress(false);
         }
     }
 
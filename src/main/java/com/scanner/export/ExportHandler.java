@@ -1,79 +1,120 @@
 package com.scanner.export;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
 
-import javax.imageio.ImageIO;
+import org.bytedeco.javacpp.BytePointer;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imencode;
+import org.bytedeco.opencv.opencv_core.Mat;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import com.scanner.metrics.ScanMetrics;
+import com.scanner.metrics.Stage;
+import com.scanner.processor.MatImageConverter;
 
-import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
 
 public class ExportHandler {
-    
+
+    // Format yang bisa ditulis saveMat/exportMat
+    public static final List<String> FORMATS = List.of("PNG", "JPEG", "JPG", "PDF");
+
+    // Penanda berhasil untuk saveMat yang tidak butuh isi file
+    private static final byte[] WRITTEN = new byte[0];
+
+    public static boolean isSupported(String format) {
+        return format != null && FORMATS.contains(format.toUpperCase(Locale.ROOT));
+    }
+
     public void saveImage(Image image, File file, String format) {
         if (image == null || file == null || format == null) {
             System.err.println("Parameter tidak valid untuk export");
             return;
         }
-        
+
+        Mat mat = MatImageConverter.toMat(image);
+        if (mat == null) {
+            System.err.println("Gagal mengkonversi Image ke Mat untuk export");
+            return;
+        }
+
+        try {
+            if (saveMat(mat, file, format)) {
+                System.out.println("File berhasil disimpan: " + file.getAbsolutePath());
+            }
+        } finally {
+            mat.release();
+        }
+    }
+
+    /*
+     * Menyimpan Mat langsung tanpa melewati JavaFX Image, sehingga bisa dipakai
+     * di server tanpa display (batch mode). PNG/JPEG di-encode oleh OpenCV (imencode)
+     * lalu ditulis sebagai byte; PDF ditulis oleh PdfDocumentWriter (satu halaman).
+     * Return false jika penyimpanan gagal.
+     */
+    public boolean saveMat(Mat mat, File file, String format) {
+        return write(mat, file, format, false) != null;
+    }
+
+    /*
+     * Seperti saveMat, tetapi mengembalikan isi file yang ditulis (untuk ResultCache), atau null
+     * jika gagal. PNG/JPEG memakai byte hasil encode yang sudah ada di memori; hanya PDF yang
+     * dibaca ulang dari file.
+     */
+    public byte[] exportMat(Mat mat, File file, String format) {
+        return write(mat, file, format, true);
+    }
+
+    private byte[] write(Mat mat, File file, String format, boolean returnBytes) {
+        if (mat == null || mat.empty() || file == null || format == null) {
+            System.err.println("Parameter tidak valid untuk export");
+            return null;
+        }
+
+        long start = System.nanoTime();
         try {
-            BufferedImage bufferedImage = SwingFXUtils.fromFXImage(image, null);
-            
             switch (format.toUpperCase()) {
                 case "PDF":
-                    saveAsPDF(bufferedImage, file);
-                    break;
+                    try (PdfDocumentWriter writer = new PdfDocumentWriter(file, PdfDocumentWriter.DEFAULT_JPEG_QUALITY, 1)) {
+                        writer.appendPage(mat);
+                        writer.finish();
+                    }
+                    return returnBytes ? Files.readAllBytes(file.toPath()) : WRITTEN;
                 case "PNG":
+                    return writeEncoded(mat, ".png", file);
                 case "JPG":
                 case "JPEG":
-                    ImageIO.write(bufferedImage, format.toLowerCase(), file);
-                    break;
+                    return writeEncoded(mat, ".jpg", file);
                 default:
                     System.err.println("Format tidak didukung: " + format);
-                    break;
+                    return null;
             }
-            
-            System.out.println("File berhasil disimpan: " + file.getAbsolutePath());
-            
         } catch (IOException e) {
             System.err.println("Error saat menyimpan file: " + e.getMessage());
-            e.printStackTrace();
+            return null;
+        } finally {
+            ScanMetrics.getInstance().record(Stage.EXPORT, start);
         }
     }
-    
-    private void saveAsPDF(BufferedImage image, File file) throws IOException {
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage();
-            document.addPage(page);
-            
-            var pdImage = LosslessFactory.createFromImage(document, image);
-            
-            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
-                float pageWidth = page.getMediaBox().getWidth();
-                float pageHeight = page.getMediaBox().getHeight();
-                
-                // Scale image to fit page while maintaining aspect ratio
-                float imageWidth = image.getWidth();
-                float imageHeight = image.getHeight();
-                float scale = Math.min(pageWidth / imageWidth, pageHeight / imageHeight);
-                
-                float scaledWidth = imageWidth * scale;
-                float scaledHeight = imageHeight * scale;
-                
-                // Center image on page
-                float x = (pageWidth - scaledWidth) / 2;
-                float y = (pageHeight - scaledHeight) / 2;
-                
-                contentStream.drawImage(pdImage, x, y, scaledWidth, scaledHeight);
+
+    private byte[] writeEncoded(Mat mat, String extension, File file) throws IOException {
+        BytePointer encoded = new BytePointer();
+        try {
+            long encodeStart = System.nanoTime();
+            if (!imencode(extension, mat, encoded)) {
+                System.err.println("Gagal meng-encode gambar ke " + extension);
+                return null;
             }
-            
-            document.save(file);
+            ScanMetrics.getInstance().record(Stage.ENCODE, encodeStart);
+            byte[] bytes = new byte[(int) encoded.limit()];
+            encoded.get(bytes);
+            Files.write(file.toPath(), bytes);
+            return bytes;
+        } finally {
+            encoded.deallocate();
         }
     }
-} 
\ No newline at end of file
+}
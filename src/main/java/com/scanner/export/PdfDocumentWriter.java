@@ -0,0 +1,294 @@
+package com.scanner.export;
+
+import static org.bytedeco.opencv.global.opencv_core.NORM_INF;
+import static org.bytedeco.opencv.global.opencv_core.countNonZero;
+import static org.bytedeco.opencv.global.opencv_core.inRange;
+import static org.bytedeco.opencv.global.opencv_core.norm;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMWRITE_JPEG_QUALITY;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imencode;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGR2GRAY;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_GRAY2BGR;
+import static org.bytedeco.opencv.global.opencv_imgproc.cvtColor;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.image.CCITTFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
+
+import com.scanner.metrics.ScanMetrics;
+import com.scanner.metrics.Stage;
+
+/*
+ * Menulis banyak halaman hasil scan ke satu PDF, satu halaman setiap kali.
+ *
+ * - Halaman berwarna/grayscale disimpan sebagai JPEG (DCTDecode) dengan kualitas
+ *   yang bisa diatur, halaman hitam putih (hanya pixel 0/255, misalnya filter
+ *   "Hitam Putih") sebagai CCITT Group 4 1-bit. Jenis halaman dideteksi otomatis.
+ * - Encoding halaman berjalan paralel di thread pool, tetapi halaman selalu
+ *   ditambahkan ke dokumen sesuai urutan appendPage. Paling banyak "window" halaman
+ *   menunggu sekaligus, sehingga jumlah Mat yang tertahan di memori terbatas.
+ * - PDDocument memakai memori campuran: lebih dari MAX_MAIN_MEMORY_BYTES dipindah
+ *   ke temp file, jadi job ratusan halaman tidak menumpuk di heap.
+ *
+ * Pemakaian: appendPage untuk setiap halaman, finish untuk menyimpan, lalu close.
+ */
+public class PdfDocumentWriter implements AutoCloseable {
+
+    public static final int DEFAULT_JPEG_QUALITY = 85;
+    private static final long MAX_MAIN_MEMORY_BYTES = 16L * 1024 * 1024;
+
+    private final File file;
+    private final int jpegQuality;
+    private final PDDocument document;
+    private final ExecutorService encoder;
+    private final int window;
+    private final Deque<Future<EncodedPage>> pending = new ArrayDeque<>();
+    private int pageCount;
+
+    public PdfDocumentWriter(File file) {
+        this(file, DEFAULT_JPEG_QUALITY, Runtime.getRuntime().availableProcessors());
+    }
+
+    public PdfDocumentWriter(File file, int jpegQuality, int threads) {
+        this.file = file;
+        this.jpegQuality = jpegQuality;
+        this.document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES));
+        this.encoder = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "pdf-encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.window = Math.max(1, threads) * 2;
+    }
+
+    /*
+     * Mat disalin, jadi pemanggil boleh langsung me-release setelah method ini kembali.
+     */
+    public void appendPage(Mat page) throws IOException {
+        Mat copy = page.clone();
+        if (PointerScope.getInnerScope() != null) {
+            // Salinan dipakai thread encoder, jangan ikut dibebaskan oleh PointerScope pemanggil
+            copy.retainReference();
+        }
+        pending.add(encoder.submit(() -> encode(copy)));
+        while (pending.size() > window) {
+            writeNext();
+        }
+    }
+
+    /*
+     * Menunggu semua halaman selesai di-encode lalu menyimpan dokumen ke file.
+     */
+    public void finish() throws IOException {
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+        document.save(file);
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Tunggu encoding yang masih berjalan agar Mat salinan ikut di-release
+        for (Future<EncodedPage> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                // Diabaikan, dokumen tidak disimpan
+            }
+        }
+        pending.clear();
+        encoder.shutdown();
+        document.close();
+    }
+
+    private void writeNext() throws IOException {
+        EncodedPage encoded;
+        try {
+            encoded = pending.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Encoding halaman PDF dibatalkan", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Gagal meng-encode halaman PDF: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        PDImageXObject pdImage;
+        if (encoded.decodeParms != null) {
+            pdImage = new PDImageXObject(document, new ByteArrayInputStream(encoded.data),
+                    COSName.CCITTFAX_DECODE, encoded.width, encoded.height, 1, PDDeviceGray.INSTANCE);
+            pdImage.getCOSObject().setItem(COSName.DECODE_PARMS, encoded.decodeParms);
+        } else {
+            pdImage = JPEGFactory.createFromByteArray(document, encoded.data);
+        }
+
+        PDPage page = new PDPage();
+        document.addPage(page);
+
+        try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+            float pageWidth = page.getMediaBox().getWidth();
+            float pageHeight = page.getMediaBox().getHeight();
+
+            // Scale image to fit page while maintaining aspect ratio
+            float imageWidth = encoded.width;
+            float imageHeight = encoded.height;
+            float scale = Math.min(pageWidth / imageWidth, pageHeight / imageHeight);
+
+            float scaledWidth = imageWidth * scale;
+            float scaledHeight = imageHeight * scale;
+
+            // Center image on page
+            float x = (pageWidth - scaledWidth) / 2;
+            float y = (pageHeight - scaledHeight) / 2;
+
+            contentStream.drawImage(pdImage, x, y, scaledWidth, scaledHeight);
+        }
+        pageCount++;
+    }
+
+    /*
+     * Dijalankan di thread encoder. Tidak menyentuh dokumen utama (PDDocument tidak thread-safe).
+     */
+    private EncodedPage encode(Mat page) throws IOException {
+        long start = System.nanoTime();
+        Mat gray = new Mat();
+        try {
+            boolean grayscale;
+            if (page.channels() == 1) {
+                page.copyTo(gray);
+                grayscale = true;
+            } else {
+                cvtColor(page, gray, COLOR_BGR2GRAY);
+                grayscale = isSameAsGray(page, gray);
+            }
+
+            if (grayscale && isBilevel(gray)) {
+                return encodeBilevel(gray);
+            }
+            return encodeJpeg(grayscale ? gray : page);
+        } finally {
+            gray.release();
+            page.release();
+            ScanMetrics.getInstance().record(Stage.ENCODE, start);
+        }
+    }
+
+    private static boolean isSameAsGray(Mat bgr, Mat gray) {
+        Mat back = new Mat();
+        try {
+            cvtColor(gray, back, COLOR_GRAY2BGR);
+            return norm(bgr, back, NORM_INF, null) <= 1;
+        } finally {
+            back.release();
+        }
+    }
+
+    private static boolean isBilevel(Mat gray) {
+        Mat lower = new Mat(new Scalar(1.0));
+        Mat upper = new Mat(new Scalar(254.0));
+        Mat between = new Mat();
+        try {
+            inRange(gray, lower, upper, between);
+            return countNonZero(between) == 0;
+        } finally {
+            between.release();
+            upper.release();
+            lower.release();
+        }
+    }
+
+    private EncodedPage encodeJpeg(Mat image) throws IOException {
+        BytePointer buffer = new BytePointer();
+        IntPointer params = new IntPointer(IMWRITE_JPEG_QUALITY, jpegQuality);
+        try {
+            if (!imencode(".jpg", image, buffer, params)) {
+                throw new IOException("Gagal meng-encode halaman ke JPEG");
+            }
+            byte[] bytes = new byte[(int) buffer.limit()];
+            buffer.get(bytes);
+            return new EncodedPage(bytes, image.cols(), image.rows(), null);
+        } finally {
+            params.deallocate();
+            buffer.deallocate();
+        }
+    }
+
+    /*
+     * Encoder G4 milik PDFBox hanya tersedia lewat CCITTFactory, yang menulis ke sebuah
+     * dokumen. Encoding dilakukan pada dokumen sementara milik thread ini, lalu stream
+     * mentah (sudah terkompresi) dan DecodeParms-nya dipindah ke dokumen utama.
+     */
+    private static EncodedPage encodeBilevel(Mat gray) throws IOException {
+        int width = gray.cols();
+        int height = gray.rows();
+
+        // TYPE_BYTE_BINARY: 1 bit per pixel, bit 1 = putih
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] packed = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int packedStride = (width + 7) / 8;
+        byte[] row = new byte[width];
+        for (int y = 0; y < height; y++) {
+            gray.ptr(y).get(row, 0, width);
+            int offset = y * packedStride;
+            for (int x = 0; x < width; x++) {
+                if (row[x] != 0) {
+                    packed[offset + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+        }
+
+        try (PDDocument scratch = new PDDocument(MemoryUsageSetting.setupMainMemoryOnly())) {
+            PDImageXObject encoded = CCITTFactory.createFromImage(scratch, image);
+            COSDictionary decodeParms = new COSDictionary();
+            decodeParms.addAll((COSDictionary) encoded.getCOSObject().getDictionaryObject(COSName.DECODE_PARMS));
+            try (InputStream raw = encoded.getCOSObject().createRawInputStream()) {
+                return new EncodedPage(raw.readAllBytes(), width, height, decodeParms);
+            }
+        }
+    }
+
+    private static final class EncodedPage {
+        final byte[] data;
+        final int width;
+        final int height;
+        // Null untuk JPEG
+        final COSDictionary decodeParms;
+
+        EncodedPage(byte[] data, int width, int height, COSDictionary decodeParms) {
+            this.data = data;
+            this.width = width;
+            this.height = height;
+            this.decodeParms = decodeParms;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.scanner.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Histogram latensi lock-free dengan bucket logaritmik dalam mikrodetik:
+ * setiap pangkat dua dibagi 4 sub-bucket, dari 1 us sampai sekitar 2^40 us.
+ * Mencatat satu nilai hanya berupa beberapa operasi atomik, tanpa alokasi,
+ * sehingga aman dipanggil dari banyak thread scan sekaligus.
+ */
+public class LatencyHistogram implements StageLatencyMXBean {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = MAX_EXPONENT * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        buckets.incrementAndGet(bucketIndex(micros));
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return exponent * SUB_BUCKETS + subBucket - (SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+    }
+
+    // Batas atas (inklusif) sebuah bucket, dalam mikrodetik
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shifted = index + (SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+        int exponent = shifted / SUB_BUCKETS;
+        int subBucket = shifted % SUB_BUCKETS;
+        long base = 1L << exponent;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return base + (subBucket + 1) * width - 1;
+    }
+
+    public long[] snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = buckets.get(i);
+        }
+        return copy;
+    }
+
+    /*
+     * Persentil (0..100) dari isi bucket, dalam milidetik; 0 jika kosong.
+     * Dipakai juga untuk selisih dua snapshot (statistik per interval log).
+     */
+    public static double percentileMillis(long[] bucketCounts, double percentile) {
+        long total = 0;
+        for (long c : bucketCounts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return bucketUpperBound(i) / 1000.0;
+            }
+        }
+        return bucketUpperBound(bucketCounts.length - 1) / 1000.0;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalMicros.sum() / 1000.0 / n;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return percentileMillis(snapshot(), 50);
+    }
+
+    @Override
+    public double getP95Millis() {
+        return percentileMillis(snapshot(), 95);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return percentileMillis(snapshot(), 99);
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalMicros.reset();
+        maxMicros.reset();
+    }
+}
@@ -0,0 +1,289 @@
+package com.scanner.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.bytedeco.javacpp.Pointer;
+
+/*
+ * Metrik pipeline untuk satu JVM: histogram latensi per tahap, counter hasil scan,
+ * counter hit/miss ResultCache dan gauge memori native JavaCPP.
+ *
+ * - Diekspos lewat JMX (jconsole, VisualVM, atau exporter JMX lain)
+ * - Log periodik opsional lewat system property "scanner.metrics.log" (detik, default mati),
+ *   berisi persentil per tahap selama interval terakhir dan memori native saat ini
+ *
+ * Pemakaian di pipeline:
+ *   long start = System.nanoTime();
+ *   ...
+ *   ScanMetrics.getInstance().record(Stage.EDGES, start);
+ *
+ * Pekerjaan yang bukan scan sungguhan (preview GUI) dijalankan lewat untracked, sehingga
+ * counter scan dan histogram per tahap hanya berisi scan yang diminta pengguna.
+ */
+public final class ScanMetrics implements ScanMetricsMXBean {
+
+    private static final ScanMetrics INSTANCE = new ScanMetrics();
+
+    private final Map<Stage, LatencyHistogram> latencies = new EnumMap<>(Stage.class);
+    private final LongAdder scans = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder detectionFailures = new LongAdder();
+    private final LongAdder filterFailures = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+    private final LongAdder fixedRigHits = new LongAdder();
+    private final LongAdder fixedRigFallbacks = new LongAdder();
+    private final LongAdder outputCacheHits = new LongAdder();
+    private final LongAdder outputCacheDiskHits = new LongAdder();
+    private final LongAdder outputCacheMisses = new LongAdder();
+    private final LongAdder cornerCacheHits = new LongAdder();
+    private final LongAdder cornerCacheMisses = new LongAdder();
+    // true selama thread ini menjalankan untracked
+    private final ThreadLocal<Boolean> untracked = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private ScanMetrics() {
+        for (Stage stage : Stage.values()) {
+            latencies.put(stage, new LatencyHistogram());
+        }
+        registerMBeans();
+
+        long logInterval = Long.getLong("scanner.metrics.log", 0);
+        if (logInterval > 0) {
+            startPeriodicLog(logInterval);
+        }
+    }
+
+    public static ScanMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /*
+     * Menjalankan action tanpa mencatat metrik apa pun dari thread ini (latensi tahap maupun
+     * counter). Pemanggil mencatat ringkasannya sendiri, misalnya Stage.PREVIEW.
+     */
+    public <T> T untracked(Supplier<T> action) {
+        Boolean previous = untracked.get();
+        untracked.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            untracked.set(previous);
+        }
+    }
+
+    private boolean tracking() {
+        return !untracked.get();
+    }
+
+    private void count(LongAdder counter) {
+        if (tracking()) {
+            counter.increment();
+        }
+    }
+
+    /*
+     * Mencatat latensi dari startNanos (hasil System.nanoTime()) sampai sekarang.
+     */
+    public void record(Stage stage, long startNanos) {
+        if (tracking()) {
+            latencies.get(stage).recordNanos(System.nanoTime() - startNanos);
+        }
+    }
+
+    public LatencyHistogram getLatency(Stage stage) {
+        return latencies.get(stage);
+    }
+
+    public void scanStarted() {
+        count(scans);
+    }
+
+    public void scanSucceeded() {
+        count(successes);
+    }
+
+    public void detectionFailed() {
+        count(detectionFailures);
+    }
+
+    public void filterFailed() {
+        count(filterFailures);
+    }
+
+    public void scanCancelled() {
+        count(cancellations);
+    }
+
+    public void fixedRigHit() {
+        count(fixedRigHits);
+    }
+
+    public void fixedRigFallback() {
+        count(fixedRigFallbacks);
+    }
+
+    public void outputCacheHit(boolean fromDisk) {
+        count(outputCacheHits);
+        if (fromDisk) {
+            count(outputCacheDiskHits);
+        }
+    }
+
+    public void outputCacheMiss() {
+        count(outputCacheMisses);
+    }
+
+    public void cornerCacheHit() {
+        count(cornerCacheHits);
+    }
+
+    public void cornerCacheMiss() {
+        count(cornerCacheMisses);
+    }
+
+    @Override
+    public long getScanCount() {
+        return scans.sum();
+    }
+
+    @Override
+    public long getSuccessCount() {
+        return successes.sum();
+    }
+
+    @Override
+    public long getDetectionFailureCount() {
+        return detectionFailures.sum();
+    }
+
+    @Override
+    public long getFilterFailureCount() {
+        return filterFailures.sum();
+    }
+
+    @Override
+    public long getCancelledCount() {
+        return cancellations.sum();
+    }
+
+    @Override
+    public long getFixedRigHitCount() {
+        return fixedRigHits.sum();
+    }
+
+    @Override
+    public long getFixedRigFallbackCount() {
+        return fixedRigFallbacks.sum();
+    }
+
+    @Override
+    public long getOutputCacheHitCount() {
+        return outputCacheHits.sum();
+    }
+
+    @Override
+    public long getOutputCacheDiskHitCount() {
+        return outputCacheDiskHits.sum();
+    }
+
+    @Override
+    public long getOutputCacheMissCount() {
+        return outputCacheMisses.sum();
+    }
+
+    @Override
+    public long getCornerCacheHitCount() {
+        return cornerCacheHits.sum();
+    }
+
+    @Override
+    public long getCornerCacheMissCount() {
+        return cornerCacheMisses.sum();
+    }
+
+    @Override
+    public long getNativeTotalBytes() {
+        return Pointer.totalBytes();
+    }
+
+    @Override
+    public long getPhysicalBytes() {
+        return Pointer.physicalBytes();
+    }
+
+    @Override
+    public long getMaxPhysicalBytes() {
+        return Pointer.maxPhysicalBytes();
+    }
+
+    private void registerMBeans() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName("com.scanner:type=ScanMetrics"));
+            for (Map.Entry<Stage, LatencyHistogram> entry : latencies.entrySet()) {
+                server.registerMBean(entry.getValue(),
+                        new ObjectName("com.scanner:type=StageLatency,stage=" + entry.getKey().getLabel()));
+            }
+        } catch (Exception e) {
+            System.err.println("Gagal mendaftarkan MBean metrik: " + e.getMessage());
+        }
+    }
+
+    private void startPeriodicLog(long intervalSeconds) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Map<Stage, long[]> previous = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            previous.put(stage, latencies.get(stage).snapshot());
+        }
+
+        scheduler.scheduleAtFixedRate(() -> {
+            StringBuilder line = new StringBuilder("[metrics]");
+            line.append(String.format(Locale.ROOT, " scan=%d ok=%d gagal_deteksi=%d gagal_filter=%d batal=%d",
+                    getScanCount(), getSuccessCount(), getDetectionFailureCount(), getFilterFailureCount(),
+                    getCancelledCount()));
+            line.append(String.format(Locale.ROOT, " cache_output=%d/%d cache_sudut=%d/%d",
+                    getOutputCacheHitCount(), getOutputCacheHitCount() + getOutputCacheMissCount(),
+                    getCornerCacheHitCount(), getCornerCacheHitCount() + getCornerCacheMissCount()));
+            if (getFixedRigHitCount() + getFixedRigFallbackCount() > 0) {
+                line.append(String.format(Locale.ROOT, " rig=%d/%d",
+                        getFixedRigHitCount(), getFixedRigHitCount() + getFixedRigFallbackCount()));
+            }
+
+            for (Stage stage : Stage.values()) {
+                long[] current = latencies.get(stage).snapshot();
+                long[] before = previous.put(stage, current);
+                long[] interval = new long[current.length];
+                long count = 0;
+                for (int i = 0; i < current.length; i++) {
+                    interval[i] = current[i] - before[i];
+                    count += interval[i];
+                }
+                if (count > 0) {
+                    line.append(String.format(Locale.ROOT, " | %s n=%d p50=%.1fms p99=%.1fms",
+                            stage.getLabel(), count,
+                            LatencyHistogram.percentileMillis(interval, 50),
+                            LatencyHistogram.percentileMillis(interval, 99)));
+                }
+            }
+
+            line.append(String.format(Locale.ROOT, " | native=%.1fMB physical=%.1fMB",
+                    getNativeTotalBytes() / 1048576.0, getPhysicalBytes() / 1048576.0));
+            System.out.println(line);
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,47 @@
+package com.scanner.metrics;
+
+/*
+ * Counter dan gauge tingkat aplikasi (ObjectName com.scanner:type=ScanMetrics).
+ * Latensi per tahap ada di MBean terpisah: com.scanner:type=StageLatency,stage=<nama>.
+ */
+public interface ScanMetricsMXBean {
+
+    long getScanCount();
+
+    long getSuccessCount();
+
+    long getDetectionFailureCount();
+
+    long getFilterFailureCount();
+
+    // Scan yang dihentikan karena digantikan scan yang lebih baru (GUI)
+    long getCancelledCount();
+
+    // Mode kamera tetap: frame yang langsung di-remap, dan yang kembali ke deteksi penuh
+    long getFixedRigHitCount();
+
+    long getFixedRigFallbackCount();
+
+    // ResultCache: output ter-encode (hit dari memori atau disk) dan sudut per profil
+    long getOutputCacheHitCount();
+
+    long getOutputCacheDiskHitCount();
+
+    long getOutputCacheMissCount();
+
+    long getCornerCacheHitCount();
+
+    long getCornerCacheMissCount();
+
+    /*
+     * Memori native yang dialokasikan lewat allocator JavaCPP (Pointer, BytePointer, ...).
+     * Buffer pixel cv::Mat dialokasikan oleh OpenCV sendiri dan tidak terhitung di sini;
+     * untuk memantau pertumbuhan memori native gunakan getPhysicalBytes.
+     */
+    long getNativeTotalBytes();
+
+    // Resident set size proses (heap + native), dibaca oleh JavaCPP dari OS
+    long getPhysicalBytes();
+
+    long getMaxPhysicalBytes();
+}
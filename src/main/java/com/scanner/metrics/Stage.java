@@ -0,0 +1,34 @@
+package com.scanner.metrics;
+
+/*
+ * Tahap pipeline yang latensinya dicatat.
+ */
+public enum Stage {
+    DECODE("decode"),
+    EDGES("edges"),
+    // Seluruh CornerDetectorChain (kontur, Hough, ONNX, fallback)
+    CORNERS("corners"),
+    HOUGH("hough"),
+    // Pemilihan 4 sudut dari intersections Hough
+    CLUSTERING("clustering"),
+    WARP("warp"),
+    FILTER("filter"),
+    // imencode / encoding halaman PDF
+    ENCODE("encode"),
+    // Seluruh penyimpanan file termasuk encode dan tulis ke disk
+    EXPORT("export"),
+    // Preview GUI pada proxy resolusi rendah, dari Image sampai Image
+    PREVIEW("preview"),
+    // Mode video: tracking sudut antar frame (Lucas-Kanade) per frame
+    TRACKING("tracking");
+
+    private final String label;
+
+    Stage(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,22 @@
+package com.scanner.metrics;
+
+/*
+ * Latensi satu tahap sejak aplikasi mulai (atau sejak reset), dalam milidetik.
+ * Persentil adalah batas atas bucket histogram (error maksimal sekitar 19%).
+ */
+public interface StageLatencyMXBean {
+
+    long getCount();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
@@ -0,0 +1,276 @@
+package com.scanner.processor;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.DoubleAccumulator;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC1;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/*
+ * Binarisasi adaptif (Sauvola / Wolf) untuk filter "Hitam Putih Adaptif".
+ *
+ * Threshold setiap pixel dihitung dari rata-rata m dan simpangan baku s di jendela sekitarnya,
+ * jadi bayangan dan pencahayaan yang tidak rata tidak menghitamkan sebagian halaman seperti
+ * Otsu global:
+ * - Sauvola: T = m * (1 + k * (s / 128 - 1))
+ * - Wolf:    T = m - k * (1 - s / sMax) * (m - gMin), sMax simpangan baku lokal terbesar dan
+ *            gMin pixel tergelap di halaman; lebih baik untuk halaman pucat/kontras rendah
+ *
+ * m dan s diambil dari jumlah dan jumlah kuadrat per kolom yang digeser baris demi baris,
+ * jadi biayanya tetap berapa pun ukuran jendela. Halaman dibagi per pita baris yang dikerjakan
+ * paralel di pool TiledExecutor; setiap pita hanya memegang beberapa array selebar halaman,
+ * bukan integral image, dan melepasnya setelah selesai. Pixel dibaca dan ditulis langsung di
+ * buffer Mat lewat UByteIndexer, tanpa Mat perantara.
+ *
+ * Konfigurasi:
+ * - scanner.binarize.method: sauvola (default) atau wolf
+ * - scanner.binarize.k: default 0.34 (Sauvola) atau 0.5 (Wolf)
+ * - scanner.binarize.window: sisi jendela dalam pixel, default sekitar 1/24 sisi pendek halaman
+ */
+final class AdaptiveBinarizer {
+
+    enum Method {
+        SAUVOLA,
+        WOLF
+    }
+
+    private static final Method METHOD =
+            Method.valueOf(System.getProperty("scanner.binarize.method", "sauvola").toUpperCase(Locale.ROOT));
+    private static final double K = Double.parseDouble(
+            System.getProperty("scanner.binarize.k", METHOD == Method.WOLF ? "0.5" : "0.34"));
+    private static final int WINDOW = Integer.getInteger("scanner.binarize.window", 0);
+    // R pada rumus Sauvola: simpangan baku maksimum yang mungkin untuk 8 bit
+    private static final double DYNAMIC_RANGE = 128;
+    private static final int MIN_RADIUS = 7;
+
+    private AdaptiveBinarizer() {
+    }
+
+    /*
+     * gray harus CV_8UC1. dst dibuat sebagai CV_8UC1 berisi 0/255.
+     */
+    static void binarize(Mat gray, Mat dst) {
+        int width = gray.cols();
+        int height = gray.rows();
+        dst.create(height, width, CV_8UC1);
+        int radius = radiusFor(width, height);
+
+        UByteIndexer source = gray.createIndexer();
+        UByteIndexer target = dst.createIndexer();
+        try {
+            double maxDeviation = DYNAMIC_RANGE;
+            double minGray = 0;
+            if (METHOD == Method.WOLF) {
+                // Wolf butuh statistik seluruh halaman dulu: satu lintasan tambahan tanpa output
+                DoubleAccumulator deviation = new DoubleAccumulator(Math::max, 0);
+                DoubleAccumulator darkest = new DoubleAccumulator(Math::min, 255);
+                TiledExecutor.applyRows(height, 2 * radius, (top, bottom) ->
+                        band(source, null, width, height, top, bottom, radius, null, deviation, darkest));
+                maxDeviation = Math.max(1, deviation.get());
+                minGray = darkest.get();
+            }
+
+            double[] parameters = { maxDeviation, minGray };
+            TiledExecutor.applyRows(height, 2 * radius, (top, bottom) ->
+                    band(source, target, width, height, top, bottom, radius, parameters, null, null));
+        } finally {
+            source.release();
+            target.release();
+        }
+    }
+
+    private static int radiusFor(int width, int height) {
+        if (WINDOW > 0) {
+            return Math.max(1, WINDOW / 2);
+        }
+        return Math.max(MIN_RADIUS, Math.min(width, height) / 48);
+    }
+
+    /*
+     * Baris [top, bottom). target null: hanya mengumpulkan simpangan baku terbesar dan pixel
+     * tergelap (Wolf).
+     */
+    private static void band(UByteIndexer source, UByteIndexer target, int width, int height, int top, int bottom,
+            int radius, double[] parameters, DoubleAccumulator deviation, DoubleAccumulator darkest) {
+        Window window = new Window(source, width, height, radius, top);
+        if (target != null) {
+            threshold(source, target, window, top, bottom, parameters);
+        } else {
+            collect(source, window, top, bottom, deviation, darkest);
+        }
+    }
+
+    /*
+     * Kedua rumus berbentuk T = dasar + c * s dengan c >= 0, jadi p > T bisa diuji tanpa akar:
+     * (p - dasar) > 0 dan (p - dasar)^2 > c^2 * varians.
+     */
+    private static void threshold(UByteIndexer source, UByteIndexer target, Window window, int start, int end,
+            double[] parameters) {
+        int width = window.width;
+        int radius = window.radius;
+        int[] row = window.row;
+        long[] sums = window.sums;
+        long[] squares = window.squares;
+        double[] inverseAreas = window.inverseAreas;
+        double maxDeviation = parameters[0];
+        double minGray = parameters[1];
+        boolean wolf = METHOD == Method.WOLF;
+
+        for (int y = start; y < end; y++) {
+            window.moveTo(y);
+            source.get(y, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int left = Math.max(0, x - radius);
+                int right = Math.min(width, x + radius + 1);
+                double inverseArea = inverseAreas[x];
+                double mean = (sums[right] - sums[left]) * inverseArea;
+
+                double base;
+                double slope;
+                if (wolf) {
+                    base = mean - K * (mean - minGray);
+                    slope = K * (mean - minGray) / maxDeviation;
+                } else {
+                    base = mean * (1 - K);
+                    slope = mean * K / DYNAMIC_RANGE;
+                }
+                double above = row[x] - base;
+                if (above <= 0) {
+                    row[x] = 0;
+                    continue;
+                }
+                double variance = (squares[right] - squares[left]) * inverseArea - mean * mean;
+                row[x] = above * above > slope * slope * variance ? 255 : 0;
+            }
+            target.put(y, row, 0, width);
+        }
+    }
+
+    private static void collect(UByteIndexer source, Window window, int start, int end,
+            DoubleAccumulator deviation, DoubleAccumulator darkest) {
+        int width = window.width;
+        int radius = window.radius;
+        int[] row = window.row;
+        long[] sums = window.sums;
+        long[] squares = window.squares;
+        double[] inverseAreas = window.inverseAreas;
+        double maxDeviation = 0;
+        int minGray = 255;
+
+        for (int y = start; y < end; y++) {
+            window.moveTo(y);
+            source.get(y, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                minGray = Math.min(minGray, row[x]);
+                int left = Math.max(0, x - radius);
+                int right = Math.min(width, x + radius + 1);
+                double inverseArea = inverseAreas[x];
+                double mean = (sums[right] - sums[left]) * inverseArea;
+                double meanSquare = (squares[right] - squares[left]) * inverseArea;
+                maxDeviation = Math.max(maxDeviation, meanSquare - mean * mean);
+            }
+        }
+        deviation.accumulate(Math.sqrt(Math.max(0, maxDeviation)));
+        darkest.accumulate(minGray);
+    }
+
+    /*
+     * Jumlah dan jumlah kuadrat per kolom untuk baris [y - radius, y + radius], digeser satu baris
+     * setiap kali: baris yang masuk ditambahkan, baris yang keluar dikurangkan. Prefix sum
+     * mendatarnya memberi jumlah jendela mana pun di baris y dari dua entri. Memorinya beberapa
+     * array selebar halaman, dibuat per pita dan dilepas setelahnya.
+     */
+    private static final class Window {
+        final int width;
+        final int height;
+        final int radius;
+        final int[] row;
+        // sums[x] / squares[x]: jumlah kolom [0, x) di dalam jendela
+        final long[] sums;
+        final long[] squares;
+        // 1 / luas jendela per kolom, supaya tidak ada pembagian per pixel; hanya dihitung ulang
+        // di dekat tepi atas dan bawah halaman, saat tinggi jendela berubah
+        final double[] inverseAreas;
+        private final UByteIndexer source;
+        private final int[] leaving;
+        private final int[] entering;
+        // Kuadrat per kolom muat di int sampai sekitar 33 ribu baris (255^2 * baris < 2^31)
+        private final int[] columnSums;
+        private final int[] columnSquares;
+        private int y;
+        private int windowRows;
+
+        Window(UByteIndexer source, int width, int height, int radius, int top) {
+            this.source = source;
+            this.width = width;
+            this.height = height;
+            this.radius = radius;
+            this.row = new int[width];
+            this.sums = new long[width + 1];
+            this.squares = new long[width + 1];
+            this.inverseAreas = new double[width];
+            this.leaving = new int[width];
+            this.entering = new int[width];
+            this.columnSums = new int[width];
+            this.columnSquares = new int[width];
+            for (int r = Math.max(0, top - radius); r < Math.min(height, top + radius + 1); r++) {
+                addRow(r, 1);
+            }
+            this.y = top;
+        }
+
+        /*
+         * Menggeser jendela ke baris target (hanya maju).
+         */
+        void moveTo(int target) {
+            for (; y < target; y++) {
+                boolean out = y - radius >= 0;
+                boolean in = y + radius + 1 < height;
+                if (out && in) {
+                    slide(y - radius, y + radius + 1);
+                } else if (out) {
+                    addRow(y - radius, -1);
+                } else if (in) {
+                    addRow(y + radius + 1, 1);
+                }
+            }
+            long sum = 0;
+            long square = 0;
+            for (int x = 0; x < width; x++) {
+                sum += columnSums[x];
+                square += columnSquares[x];
+                sums[x + 1] = sum;
+                squares[x + 1] = square;
+            }
+            int rows = Math.min(height, target + radius + 1) - Math.max(0, target - radius);
+            if (rows != windowRows) {
+                windowRows = rows;
+                for (int x = 0; x < width; x++) {
+                    inverseAreas[x] = 1.0 / (rows * (Math.min(width, x + radius + 1) - Math.max(0, x - radius)));
+                }
+            }
+        }
+
+        // Kasus umum di tengah halaman: satu baris keluar dan satu masuk dalam satu lintasan
+        private void slide(int out, int in) {
+            source.get(out, leaving, 0, width);
+            source.get(in, entering, 0, width);
+            for (int x = 0; x < width; x++) {
+                int removed = leaving[x];
+                int added = entering[x];
+                columnSums[x] += added - removed;
+                columnSquares[x] += added * added - removed * removed;
+            }
+        }
+
+        private void addRow(int r, int sign) {
+            source.get(r, entering, 0, width);
+            for (int x = 0; x < width; x++) {
+                int value = entering[x];
+                columnSums[x] += sign * value;
+                columnSquares[x] += sign * value * value;
+            }
+        }
+    }
+}
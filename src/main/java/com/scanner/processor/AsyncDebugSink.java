@@ -0,0 +1,131 @@
+package com.scanner.processor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imwrite;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/*
+ * DebugSink yang meng-encode PNG di thread background.
+ * Thread scan hanya membuat clone lalu memasukkannya ke antrian terbatas;
+ * jika antrian penuh, gambar dibuang (bukan menunggu) agar pipeline tidak melambat.
+ * Setiap scan mendapat folder sendiri sehingga scan paralel tidak saling menimpa.
+ */
+public class AsyncDebugSink implements DebugSink {
+
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final Path baseDir;
+    private final BlockingQueue<PendingImage> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong scanCounter = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ThreadLocal<Path> currentScanDir = new ThreadLocal<>();
+
+    public AsyncDebugSink(String baseDir) {
+        this.baseDir = Paths.get(baseDir);
+
+        Thread encoder = new Thread(this::encodeLoop, "debug-encoder");
+        encoder.setDaemon(true);
+        encoder.start();
+
+        // Thread encoder adalah daemon; sisa antrian ditulis dulu sebelum JVM berhenti
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "debug-encoder-drain"));
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void beginScan(String label) {
+        currentScanDir.set(nextScanDir(label));
+    }
+
+    @Override
+    public void write(String name, Mat mat) {
+        if (mat == null || mat.empty()) {
+            return;
+        }
+        // Clone dipakai thread encoder setelah scan selesai, jadi dilepas dari ScanScope
+        enqueue(resolve(currentScanDir.get(), name), ScanScope.retain(mat.clone()));
+    }
+
+    @Override
+    public void endScan(boolean success) {
+        currentScanDir.remove();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    protected Path nextScanDir(String label) {
+        String name = String.format("scan-%06d", scanCounter.incrementAndGet());
+        if (label != null && !label.isEmpty()) {
+            name += "-" + label.replaceAll("[^A-Za-z0-9._-]", "_");
+        }
+        return baseDir.resolve(name);
+    }
+
+    protected Path resolve(Path scanDir, String name) {
+        // Write di luar beginScan/endScan (misalnya EdgeDetector dipakai langsung) masuk ke baseDir
+        return (scanDir != null ? scanDir : baseDir).resolve(name + ".png");
+    }
+
+    /*
+     * Kepemilikan clone berpindah ke antrian; jika ditolak, clone langsung di-release.
+     */
+    protected void enqueue(Path path, Mat clone) {
+        if (!queue.offer(new PendingImage(path, clone))) {
+            clone.release();
+            if (dropped.incrementAndGet() == 1) {
+                System.err.println("Antrian debug penuh, sebagian gambar debug dilewati");
+            }
+        }
+    }
+
+    private void encodeLoop() {
+        while (true) {
+            try {
+                encode(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        PendingImage pending;
+        while ((pending = queue.poll()) != null) {
+            encode(pending);
+        }
+    }
+
+    private void encode(PendingImage pending) {
+        try {
+            Files.createDirectories(pending.path.getParent());
+            imwrite(pending.path.toString(), pending.mat);
+        } catch (IOException e) {
+            System.err.println("Gagal menulis gambar debug " + pending.path + ": " + e.getMessage());
+        } finally {
+            pending.mat.release();
+        }
+    }
+
+    static final class PendingImage {
+        final Path path;
+        final Mat mat;
+
+        PendingImage(Path path, Mat mat) {
+            this.path = path;
+            this.mat = mat;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.scanner.processor;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.CHAIN_APPROX_SIMPLE;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_GRAY2BGR;
+import static org.bytedeco.opencv.global.opencv_imgproc.LINE_AA;
+import static org.bytedeco.opencv.global.opencv_imgproc.RETR_EXTERNAL;
+import static org.bytedeco.opencv.global.opencv_imgproc.approxPolyDP;
+import static org.bytedeco.opencv.global.opencv_imgproc.arcLength;
+import static org.bytedeco.opencv.global.opencv_imgproc.contourArea;
+import static org.bytedeco.opencv.global.opencv_imgproc.cvtColor;
+import static org.bytedeco.opencv.global.opencv_imgproc.drawContours;
+import static org.bytedeco.opencv.global.opencv_imgproc.findContours;
+import static org.bytedeco.opencv.global.opencv_imgproc.isContourConvex;
+
+import java.util.Arrays;
+
+import org.bytedeco.javacpp.indexer.IntIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.MatVector;
+import org.bytedeco.opencv.opencv_core.Scalar;
+
+/*
+ * Strategi termurah: kontur luar terbesar yang bisa disederhanakan menjadi 4 titik.
+ *
+ * 1. findContours (hanya kontur luar) pada edge map
+ * 2. approxPolyDP dengan toleransi 2% keliling kontur
+ * 3. Ambil polygon konveks 4 titik dengan luas terbesar
+ * Confidence: kedekatan sudut interior dengan 90 derajat dan seberapa penuh
+ * kontur asli mengisi polygon tersebut.
+ *
+ * Cocok untuk foto bersih (dokumen kontras di atas latar polos); pada latar ramai
+ * kontur biasanya tidak tertutup dan strategi berikutnya (Hough) yang dipakai.
+ */
+public class ContourCornerDetector implements CornerDetector {
+
+    private static final double APPROX_EPSILON_FRACTION = 0.02;
+
+    private final DebugSink debugSink;
+
+    public ContourCornerDetector() {
+        this(DebugSink.DISABLED);
+    }
+
+    public ContourCornerDetector(DebugSink debugSink) {
+        this.debugSink = debugSink;
+    }
+
+    @Override
+    public String getName() {
+        return "contour";
+    }
+
+    @Override
+    public CornerQuad detect(DetectionResult result, ProcessingProfile profile) {
+        Mat edges = result.getEdges();
+        MatVector contours = new MatVector();
+        try {
+            CornerQuad quad = findLargestQuad(edges, contours);
+
+            if (quad != null && debugSink.isEnabled()) {
+                Mat debugContours = new Mat();
+                cvtColor(edges, debugContours, COLOR_GRAY2BGR);
+                drawContours(debugContours, contours, -1, new Scalar(255, 0, 255, 255), 1, LINE_AA, null, Integer.MAX_VALUE, null);
+                debugSink.write("edge_detection/06_contours", debugContours);
+                debugContours.release();
+            }
+            return quad;
+        } finally {
+            contours.close();
+        }
+    }
+
+    /*
+     * Quad terbesar dari kontur luar sebuah gambar biner (edge map atau mask segmentasi),
+     * dalam koordinat gambar tersebut. contours diisi semua kontur luar (untuk debug).
+     */
+    static CornerQuad findLargestQuad(Mat binary, MatVector contours) {
+        Mat hierarchy = new Mat();
+        try {
+            // findContours tidak mengubah input sejak OpenCV 3.2
+            findContours(binary, contours, hierarchy, RETR_EXTERNAL, CHAIN_APPROX_SIMPLE);
+
+            double imageArea = binary.cols() * (double) binary.rows();
+            double minArea = imageArea * 0.1;
+            float[] best = null;
+            double bestArea = 0;
+            double bestFill = 0;
+
+            for (long i = 0; i < contours.size(); i++) {
+                // Header ke elemen vector: jangan di-release, datanya milik contours
+                Mat contour = contours.get(i);
+                double area = contourArea(contour);
+                if (area < minArea || area <= bestArea) {
+                    continue;
+                }
+
+                Mat approx = new Mat();
+                approxPolyDP(contour, approx, APPROX_EPSILON_FRACTION * arcLength(contour, true), true);
+                if (approx.rows() == 4 && isContourConvex(approx)) {
+                    double polygonArea = contourArea(approx);
+                    best = readPoints(approx);
+                    bestArea = area;
+                    bestFill = Math.min(area, polygonArea) / Math.max(area, polygonArea);
+                }
+                approx.release();
+            }
+
+            if (best == null) {
+                return null;
+            }
+
+            CornerQuad quad = new CornerQuad(orderClockwise(best), 0);
+            return quad.withConfidence(CornerQuad.score(quad.rectangularity(), bestFill, quad.area() / imageArea));
+        } finally {
+            hierarchy.release();
+        }
+    }
+
+    private static float[] readPoints(Mat approx) {
+        // approxPolyDP dari kontur CV_32SC2 menghasilkan 4 x 1 CV_32SC2
+        float[] coords = new float[8];
+        IntIndexer indexer = approx.createIndexer();
+        for (int i = 0; i < 4; i++) {
+            coords[i * 2] = indexer.get(i, 0, 0);
+            coords[i * 2 + 1] = indexer.get(i, 0, 1);
+        }
+        indexer.release();
+        return coords;
+    }
+
+    /*
+     * Urutkan menjadi top-left, top-right, bottom-right, bottom-left:
+     * urut berdasarkan sudut terhadap pusat (searah jarum jam karena sumbu y ke bawah),
+     * lalu mulai dari titik dengan x + y terkecil.
+     */
+    static float[] orderClockwise(float[] coords) {
+        double centerX = 0, centerY = 0;
+        for (int i = 0; i < 4; i++) {
+            centerX += coords[i * 2];
+            centerY += coords[i * 2 + 1];
+        }
+        centerX /= 4;
+        centerY /= 4;
+
+        Integer[] order = { 0, 1, 2, 3 };
+        double[] angles = new double[4];
+        for (int i = 0; i < 4; i++) {
+            angles[i] = Math.atan2(coords[i * 2 + 1] - centerY, coords[i * 2] - centerX);
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(angles[a], angles[b]));
+
+        int start = 0;
+        for (int k = 1; k < 4; k++) {
+            int i = order[k];
+            int s = order[start];
+            if (coords[i * 2] + coords[i * 2 + 1] < coords[s * 2] + coords[s * 2 + 1]) {
+                start = k;
+            }
+        }
+
+        float[] ordered = new float[8];
+        for (int k = 0; k < 4; k++) {
+            int i = order[(start + k) % 4];
+            ordered[k * 2] = coords[i * 2];
+            ordered[k * 2 + 1] = coords[i * 2 + 1];
+        }
+        return ordered;
+    }
+}
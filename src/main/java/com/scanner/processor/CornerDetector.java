@@ -0,0 +1,22 @@
+package com.scanner.processor;
+
+/*
+ * Satu strategi pencarian 4 sudut dokumen.
+ *
+ * Semua strategi bekerja pada DetectionResult yang sama (edge map dihitung sekali)
+ * dan mengembalikan sudut di resolusi deteksi, atau null jika tidak menemukan apa pun.
+ * Validasi (batas gambar, luas minimal, confidence) dilakukan oleh CornerDetectorChain.
+ */
+public interface CornerDetector {
+
+    String getName();
+
+    CornerQuad detect(DetectionResult result, ProcessingProfile profile);
+
+    /*
+     * Dipanggil chain setelah sudut dari strategi mana pun diterima,
+     * misalnya agar fallback bisa mengingat sudut terakhir.
+     */
+    default void accepted(CornerQuad quad, DetectionResult result) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.scanner.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Menjalankan beberapa CornerDetector berurutan dari yang termurah dan berhenti
+ * pada hasil pertama yang valid dengan confidence >= minConfidence.
+ *
+ * Hasil dianggap valid jika keempat sudut berada di dalam gambar dan luasnya
+ * minimal 10% dari gambar. Untuk setiap strategi dicatat jumlah percobaan,
+ * jumlah hasil yang diterima dan total waktunya (aman dipakai dari banyak thread).
+ *
+ * close() menutup strategi yang memegang resource (session ONNX dan thread batch-nya).
+ */
+public class CornerDetectorChain implements CornerDetector, AutoCloseable {
+
+    public static final double DEFAULT_MIN_CONFIDENCE = 0.5;
+
+    private final List<CornerDetector> detectors;
+    private final List<Stats> stats = new ArrayList<>();
+    private final double minConfidence;
+
+    public CornerDetectorChain(List<CornerDetector> detectors, double minConfidence) {
+        this.detectors = Collections.unmodifiableList(new ArrayList<>(detectors));
+        this.minConfidence = minConfidence;
+        for (int i = 0; i < detectors.size(); i++) {
+            stats.add(new Stats());
+        }
+    }
+
+    /*
+     * Urutan default: kontur (paling murah) -> Hough Lines -> model ONNX (hanya jika
+     * scanner.onnx.model diset) -> manual/sudut sebelumnya.
+     */
+    public static CornerDetectorChain createDefault(DebugSink debugSink) {
+        List<CornerDetector> detectors = new ArrayList<>();
+        detectors.add(new ContourCornerDetector(debugSink));
+        detectors.add(new HoughCornerDetector(debugSink));
+        OnnxCornerDetector onnx = OnnxCornerDetector.fromSystemProperties();
+        if (onnx != null) {
+            detectors.add(onnx);
+        }
+        detectors.add(new FallbackCornerDetector());
+        return new CornerDetectorChain(detectors, DEFAULT_MIN_CONFIDENCE);
+    }
+
+    @Override
+    public String getName() {
+        return "chain";
+    }
+
+    public List<CornerDetector> getDetectors() {
+        return detectors;
+    }
+
+    @Override
+    public CornerQuad detect(DetectionResult result, ProcessingProfile profile) {
+        for (int i = 0; i < detectors.size(); i++) {
+            CornerDetector detector = detectors.get(i);
+            long start = System.nanoTime();
+            CornerQuad quad = detector.detect(result, profile);
+            boolean accepted = quad != null && isAcceptable(quad, result);
+            stats.get(i).record(accepted, System.nanoTime() - start);
+
+            if (quad != null && !accepted) {
+                System.out.printf(Locale.ROOT, "Strategi %s: corners tidak valid (confidence %.2f)%n",
+                        detector.getName(), quad.getConfidence());
+            }
+            if (accepted) {
+                System.out.printf(Locale.ROOT, "Corner detection successful with %s (confidence %.2f)%n",
+                        detector.getName(), quad.getConfidence());
+                result.setCornerStrategy(detector.getName());
+                for (CornerDetector other : detectors) {
+                    other.accepted(quad, result);
+                }
+                return quad;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        for (CornerDetector detector : detectors) {
+            if (detector instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) detector).close();
+                } catch (Exception e) {
+                    System.err.println("Gagal menutup strategi " + detector.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean isAcceptable(CornerQuad corners, DetectionResult result) {
+        int width = result.getEdges().cols();
+        int height = result.getEdges().rows();
+
+        // Semua corners harus dalam batas gambar
+        for (int i = 0; i < 4; i++) {
+            if (corners.x(i) < 0 || corners.x(i) >= width ||
+                    corners.y(i) < 0 || corners.y(i) >= height) {
+                return false;
+            }
+        }
+
+        // Area yang dibentuk harus cukup besar
+        double imageArea = width * (double) height;
+        if (corners.area() < imageArea * 0.1) { // minimal 10% dari gambar
+            return false;
+        }
+
+        // Bentuk dan kekuatan tepi harus cukup meyakinkan
+        return corners.getConfidence() >= minConfidence;
+    }
+
+    /*
+     * Ringkasan per strategi, misalnya:
+     *   contour: 18/20 diterima (90.0%), rata-rata 1.2 ms
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < detectors.size(); i++) {
+            Stats s = stats.get(i);
+            long attempts = s.attempts.sum();
+            long hits = s.hits.sum();
+            sb.append(String.format(Locale.ROOT, "  %s: %d/%d diterima (%.1f%%), rata-rata %.1f ms%n",
+                    detectors.get(i).getName(), hits, attempts,
+                    attempts > 0 ? 100.0 * hits / attempts : 0.0,
+                    attempts > 0 ? s.nanos.sum() / 1e6 / attempts : 0.0));
+        }
+        return sb.toString();
+    }
+
+    private static final class Stats {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder hits = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        void record(boolean hit, long elapsed) {
+            attempts.increment();
+            if (hit) {
+                hits.increment();
+            }
+            nanos.add(elapsed);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.scanner.processor;
+
+import org.bytedeco.opencv.opencv_core.Point2f;
+
+/*
+ * Empat sudut dokumen beserta skor kepercayaan (0..1).
+ * Urutan sudut: top-left, top-right, bottom-right, bottom-left.
+ */
+public final class CornerQuad {
+
+    private final float[] coords;
+    private final double confidence;
+
+    /*
+     * coords: [x0, y0, x1, y1, x2, y2, x3, y3]
+     */
+    public CornerQuad(float[] coords, double confidence) {
+        if (coords.length != 8) {
+            throw new IllegalArgumentException("CornerQuad memerlukan 4 titik (8 koordinat)");
+        }
+        this.coords = coords.clone();
+        this.confidence = confidence;
+    }
+
+    public float x(int i) {
+        return coords[i * 2];
+    }
+
+    public float y(int i) {
+        return coords[i * 2 + 1];
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public CornerQuad withConfidence(double newConfidence) {
+        return new CornerQuad(coords, newConfidence);
+    }
+
+    /*
+     * Luas quadrilateral (Shoelace formula).
+     */
+    public double area() {
+        double area = 0;
+        for (int i = 0; i < 4; i++) {
+            int j = (i + 1) % 4;
+            area += (double) x(i) * y(j);
+            area -= (double) x(j) * y(i);
+        }
+        return Math.abs(area) / 2.0;
+    }
+
+    /*
+     * Rata-rata seberapa tegak lurus keempat sudut interior: 1 = persegi panjang sempurna.
+     * Dihitung sebagai 1 - rata-rata |cos(sudut interior)|.
+     */
+    public double rectangularity() {
+        double sumCos = 0;
+        for (int i = 0; i < 4; i++) {
+            int prev = (i + 3) % 4;
+            int next = (i + 1) % 4;
+            double ax = x(prev) - x(i), ay = y(prev) - y(i);
+            double bx = x(next) - x(i), by = y(next) - y(i);
+            double lengths = Math.hypot(ax, ay) * Math.hypot(bx, by);
+            if (lengths < 1e-6) {
+                return 0;
+            }
+            sumCos += Math.abs((ax * bx + ay * by) / lengths);
+        }
+        return 1 - sumCos / 4;
+    }
+
+    /*
+     * Confidence gabungan yang dipakai semua strategi:
+     * (0.5 * rectangularity + 0.5 * support) dikali penalti luas,
+     * di mana quad yang menutupi >= 25% gambar tidak dikenai penalti.
+     * support (0..1) diisi masing-masing strategi, misalnya kekuatan garis Hough.
+     */
+    static double score(double rectangularity, double support, double areaRatio) {
+        return (0.5 * rectangularity + 0.5 * support) * Math.min(1.0, areaRatio / 0.25);
+    }
+
+    /*
+     * Salinan koordinat ke heap Java, jadi tetap valid setelah Point2f native dibebaskan.
+     */
+    public static CornerQuad fromPoints(Point2f[] points, double confidence) {
+        float[] coords = new float[8];
+        for (int i = 0; i < 4; i++) {
+            coords[i * 2] = points[i].x();
+            coords[i * 2 + 1] = points[i].y();
+        }
+        return new CornerQuad(coords, confidence);
+    }
+
+    public Point2f[] toPoints() {
+        Point2f[] points = new Point2f[4];
+        for (int i = 0; i < 4; i++) {
+            points[i] = new Point2f(x(i), y(i));
+        }
+        return points;
+    }
+}
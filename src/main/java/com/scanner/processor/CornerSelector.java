@@ -0,0 +1,74 @@
+package com.scanner.processor;
+
+/*
+ * Memilih 4 sudut dokumen dari kumpulan intersections secara deterministik dalam O(n),
+ * menggantikan kmeans (yang acak dan bisa memberi crop berbeda untuk foto yang sama).
+ *
+ * 1. Hitung pusat intersections (dibobot votes garis pembentuknya)
+ * 2. Bagi menjadi 4 kuadran terhadap pusat tersebut
+ * 3. Di tiap kuadran ambil intersection dengan bobot terbesar; jika sama,
+ *    ambil yang paling jauh dari pusat (tepi luar dokumen)
+ * 4. Hitung confidence dari kedekatan sudut interior dengan 90 derajat,
+ *    kekuatan garis pembentuk dan luas relatif terhadap gambar
+ */
+final class CornerSelector {
+
+    private CornerSelector() {
+    }
+
+    static CornerQuad select(IntersectionBuffer intersections, int width, int height) {
+        int n = intersections.size();
+        if (n < 4) {
+            return null;
+        }
+
+        double centerX = 0, centerY = 0, totalWeight = 0, maxWeight = 0;
+        for (int i = 0; i < n; i++) {
+            double w = intersections.weight(i);
+            centerX += intersections.x(i) * w;
+            centerY += intersections.y(i) * w;
+            totalWeight += w;
+            maxWeight = Math.max(maxWeight, w);
+        }
+        if (totalWeight <= 0) {
+            return null;
+        }
+        centerX /= totalWeight;
+        centerY /= totalWeight;
+
+        // Indeks kuadran: 0 = top-left, 1 = top-right, 2 = bottom-right, 3 = bottom-left
+        int[] best = { -1, -1, -1, -1 };
+        double[] bestWeight = new double[4];
+        double[] bestDistance = new double[4];
+        for (int i = 0; i < n; i++) {
+            double dx = intersections.x(i) - centerX;
+            double dy = intersections.y(i) - centerY;
+            int quadrant = dy <= 0 ? (dx <= 0 ? 0 : 1) : (dx > 0 ? 2 : 3);
+
+            double w = intersections.weight(i);
+            double distance = dx * dx + dy * dy;
+            if (best[quadrant] < 0 || w > bestWeight[quadrant]
+                    || (w == bestWeight[quadrant] && distance > bestDistance[quadrant])) {
+                best[quadrant] = i;
+                bestWeight[quadrant] = w;
+                bestDistance[quadrant] = distance;
+            }
+        }
+
+        float[] coords = new float[8];
+        double support = 0;
+        for (int q = 0; q < 4; q++) {
+            if (best[q] < 0) {
+                // Tidak ada intersection di salah satu kuadran
+                return null;
+            }
+            coords[q * 2] = intersections.x(best[q]);
+            coords[q * 2 + 1] = intersections.y(best[q]);
+            support += bestWeight[q] / maxWeight;
+        }
+
+        CornerQuad quad = new CornerQuad(coords, 0);
+        double areaRatio = quad.area() / (width * (double) height);
+        return quad.withConfidence(CornerQuad.score(quad.rectangularity(), support / 4, areaRatio));
+    }
+}
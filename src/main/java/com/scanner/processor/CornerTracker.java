@@ -0,0 +1,136 @@
+package com.scanner.processor;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_32FC2;
+import static org.bytedeco.opencv.global.opencv_video.calcOpticalFlowPyrLK;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.bytedeco.opencv.opencv_core.TermCriteria;
+
+/*
+ * Mengikuti 4 sudut dokumen antar frame video dengan pyramidal Lucas-Kanade.
+ *
+ * Bekerja pada frame grayscale yang sudah diperkecil (resolusi tracking); biayanya hanya
+ * 4 titik x beberapa level pyramid, jauh lebih murah dari deteksi tepi + Hough per frame.
+ * Tracking dianggap hilang jika ada titik yang gagal diikuti, error-nya terlalu besar,
+ * atau quad hasil tidak lagi masuk akal (tidak persegi, luas berubah drastis). Pemanggil
+ * lalu menjalankan deteksi penuh dan memanggil reset.
+ *
+ * Tidak thread-safe; satu tracker per aliran video.
+ */
+final class CornerTracker {
+
+    // Objek konfigurasi statis tidak boleh ikut dibebaskan ScanScope yang kebetulan aktif
+    private static final Size WINDOW = ScanScope.retain(new Size(21, 21));
+    private static final int PYRAMID_LEVELS = 3;
+    private static final TermCriteria CRITERIA =
+            ScanScope.retain(new TermCriteria(TermCriteria.COUNT + TermCriteria.EPS, 30, 0.01));
+    // Batas error LK (rata-rata selisih intensitas per pixel window)
+    private static final float MAX_ERROR = 30f;
+    private static final double MIN_RECTANGULARITY = 0.6;
+    private static final double MAX_AREA_CHANGE = 1.25;
+
+    private Mat previousGray;
+    private CornerQuad corners;
+
+    boolean isTracking() {
+        return corners != null;
+    }
+
+    /*
+     * Mulai (ulang) dari sudut hasil deteksi, dalam koordinat resolusi tracking.
+     * gray menjadi milik tracker, jadi harus di luar MatPool dan sudah di-retain dari ScanScope.
+     */
+    void reset(Mat gray, CornerQuad detected) {
+        replaceGray(gray);
+        corners = detected;
+    }
+
+    /*
+     * Tracking hilang: sudut dilupakan sampai reset berikutnya. gray tetap disimpan.
+     */
+    void lose(Mat gray) {
+        replaceGray(gray);
+        corners = null;
+    }
+
+    /*
+     * Sudut di frame baru, atau null jika tracking hilang. gray menjadi milik tracker.
+     */
+    CornerQuad track(Mat gray) {
+        if (corners == null || previousGray == null) {
+            lose(gray);
+            return null;
+        }
+
+        Mat previousPoints = new Mat(4, 1, CV_32FC2);
+        FloatIndexer previousIndexer = previousPoints.createIndexer();
+        for (int i = 0; i < 4; i++) {
+            previousIndexer.put(i, 0, 0, corners.x(i));
+            previousIndexer.put(i, 0, 1, corners.y(i));
+        }
+        previousIndexer.release();
+
+        Mat nextPoints = new Mat();
+        Mat status = new Mat();
+        Mat error = new Mat();
+        calcOpticalFlowPyrLK(previousGray, gray, previousPoints, nextPoints, status, error,
+                WINDOW, PYRAMID_LEVELS, CRITERIA, 0, 1e-4);
+
+        CornerQuad tracked = toQuad(nextPoints, status, error);
+        previousPoints.release();
+        nextPoints.release();
+        status.release();
+        error.release();
+
+        if (tracked != null && !plausible(tracked)) {
+            tracked = null;
+        }
+        replaceGray(gray);
+        corners = tracked;
+        return tracked;
+    }
+
+    private static CornerQuad toQuad(Mat points, Mat status, Mat error) {
+        UByteIndexer statusIndexer = status.createIndexer();
+        FloatIndexer errorIndexer = error.createIndexer();
+        FloatIndexer pointIndexer = points.createIndexer();
+        try {
+            float[] coords = new float[8];
+            for (int i = 0; i < 4; i++) {
+                if (statusIndexer.get(i) == 0 || errorIndexer.get(i) > MAX_ERROR) {
+                    return null;
+                }
+                coords[i * 2] = pointIndexer.get(i, 0, 0);
+                coords[i * 2 + 1] = pointIndexer.get(i, 0, 1);
+            }
+            return new CornerQuad(coords, 1.0);
+        } finally {
+            statusIndexer.release();
+            errorIndexer.release();
+            pointIndexer.release();
+        }
+    }
+
+    private boolean plausible(CornerQuad tracked) {
+        if (tracked.rectangularity() < MIN_RECTANGULARITY) {
+            return false;
+        }
+        double ratio = tracked.area() / Math.max(1.0, corners.area());
+        return ratio <= MAX_AREA_CHANGE && ratio >= 1 / MAX_AREA_CHANGE;
+    }
+
+    private void replaceGray(Mat gray) {
+        // track yang gagal sudah menyimpan gray; reset berikutnya memakai Mat yang sama
+        if (previousGray != null && previousGray != gray) {
+            previousGray.release();
+        }
+        previousGray = gray;
+    }
+
+    void release() {
+        replaceGray(null);
+        corners = null;
+    }
+}
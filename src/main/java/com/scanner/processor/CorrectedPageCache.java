@@ -0,0 +1,91 @@
+package com.scanner.processor;
+
+import java.lang.ref.WeakReference;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/*
+ * Cache hasil tahap deteksi + koreksi perspektif untuk gambar sumber yang sedang dibuka.
+ *
+ * Mengganti filter di GUI tidak mengubah sudut maupun hasil warp, jadi selama gambar sumber
+ * (objek Image yang sama) dan profil tidak berubah, scan berikutnya cukup menjalankan
+ * ImageFilter pada halaman yang tersimpan. Gambar sumber baru otomatis menggantikan
+ * halaman lama.
+ *
+ * Sumber dibandingkan berdasarkan identitas dan disimpan sebagai WeakReference,
+ * jadi cache tidak menahan Image lama di heap.
+ */
+final class CorrectedPageCache {
+
+    private WeakReference<Object> source = new WeakReference<>(null);
+    private ProcessingProfile profile;
+    private Page page;
+
+    /*
+     * Halaman untuk sumber dan profil ini, atau null jika belum ada.
+     * Halaman yang dikembalikan wajib di-release oleh pemanggil setelah selesai dipakai.
+     */
+    synchronized Page get(Object currentSource, ProcessingProfile currentProfile) {
+        if (page == null || source.get() != currentSource || profile != currentProfile) {
+            return null;
+        }
+        return page.retain();
+    }
+
+    /*
+     * Menyimpan halaman baru; halaman lama dibebaskan setelah pemakai terakhirnya selesai.
+     * corrected menjadi milik cache dan tidak boleh berada di buffer MatPool.
+     * Mengembalikan halaman yang sudah di-retain untuk pemanggil.
+     */
+    synchronized Page put(Object newSource, ProcessingProfile newProfile, Mat corrected, CornerQuad corners) {
+        invalidate();
+        source = new WeakReference<>(newSource);
+        profile = newProfile;
+        page = new Page(corrected, corners);
+        return page.retain();
+    }
+
+    synchronized void invalidate() {
+        if (page != null) {
+            page.release();
+            page = null;
+        }
+        source = new WeakReference<>(null);
+        profile = null;
+    }
+
+    /*
+     * Halaman hasil warp beserta sudutnya (resolusi penuh). Mat-nya hanya dibaca dan
+     * dibebaskan saat referensi terakhir di-release.
+     */
+    static final class Page {
+        private final Mat corrected;
+        private final CornerQuad corners;
+        // Satu referensi milik pembuat (cache atau scan), ditambah satu per scan yang sedang memakai
+        private int references = 1;
+
+        Page(Mat corrected, CornerQuad corners) {
+            this.corrected = corrected;
+            this.corners = corners;
+        }
+
+        Mat getCorrected() {
+            return corrected;
+        }
+
+        CornerQuad getCorners() {
+            return corners;
+        }
+
+        synchronized Page retain() {
+            references++;
+            return this;
+        }
+
+        synchronized void release() {
+            if (--references == 0) {
+                corrected.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.scanner.processor;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/*
+ * Tujuan output debug (gambar per tahap pipeline).
+ *
+ * Mode yang tersedia (system property "scanner.debug"):
+ * - off         : tidak menulis apa pun, tanpa clone maupun menggambar garis (default)
+ * - async       : setiap scan ditulis ke folder sendiri oleh thread encoder di background
+ * - sampled:N   : hanya setiap scan ke-N dan scan yang gagal yang ditulis
+ *
+ * Folder output bisa diganti lewat "scanner.debug.dir" (default: debug).
+ *
+ * Satu scan selalu dikerjakan oleh satu thread, jadi beginScan/write/endScan
+ * dipanggil dari thread yang sama dan state per-scan disimpan per thread.
+ */
+public interface DebugSink {
+
+    DebugSink DISABLED = new DebugSink() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void beginScan(String label) {
+        }
+
+        @Override
+        public void write(String name, Mat mat) {
+        }
+
+        @Override
+        public void endScan(boolean success) {
+        }
+    };
+
+    /*
+     * Pemanggil wajib mengecek ini sebelum membuat gambar khusus debug
+     * (clone, menggambar garis/titik) agar mode off benar-benar gratis.
+     */
+    boolean isEnabled();
+
+    void beginScan(String label);
+
+    /*
+     * name berupa path relatif tanpa ekstensi, misalnya "edge_detection/00_gray".
+     * Mat tidak diubah dan tetap milik pemanggil; sink membuat salinan sendiri bila perlu.
+     */
+    void write(String name, Mat mat);
+
+    void endScan(boolean success);
+
+    static DebugSink fromSystemProperties() {
+        return fromConfig(System.getProperty("scanner.debug", "off"),
+                System.getProperty("scanner.debug.dir", "debug"));
+    }
+
+    static DebugSink fromConfig(String mode, String baseDir) {
+        String normalized = mode.trim().toLowerCase();
+        if (normalized.equals("off") || normalized.isEmpty()) {
+            return DISABLED;
+        }
+        if (normalized.equals("async")) {
+            return new AsyncDebugSink(baseDir);
+        }
+        if (normalized.startsWith("sampled")) {
+            int every = 10;
+            int separator = normalized.indexOf(':');
+            if (separator >= 0) {
+                try {
+                    every = Math.max(1, Integer.parseInt(normalized.substring(separator + 1).trim()));
+                } catch (NumberFormatException e) {
+                    System.err.println("Mode debug tidak dikenal: " + mode + ", memakai sampled:" + every);
+                }
+            }
+            return new SampledDebugSink(baseDir, every);
+        }
+        System.err.println("Mode debug tidak dikenal: " + mode + ", debug dimatikan");
+        return DISABLED;
+    }
+}
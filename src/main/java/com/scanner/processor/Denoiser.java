@@ -0,0 +1,84 @@
+package com.scanner.processor;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.GaussianBlur;
+import static org.bytedeco.opencv.global.opencv_imgproc.bilateralFilter;
+import static org.bytedeco.opencv.global.opencv_imgproc.medianBlur;
+import static org.bytedeco.opencv.global.opencv_photo.fastNlMeansDenoising;
+import static org.bytedeco.opencv.global.opencv_photo.fastNlMeansDenoisingColored;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+
+/*
+ * Metode denoise yang bisa dipilih per ProcessingProfile.
+ *
+ * strength mengikuti skala parameter h dari fastNlMeansDenoising (3 = ringan, 10 = kuat)
+ * dan diterjemahkan ke parameter yang setara untuk metode lain.
+ * Bekerja untuk input grayscale (1 channel) maupun BGR (3 channel).
+ */
+public enum Denoiser {
+    // Kualitas terbaik, tapi paling lambat (puluhan kali lipat dari metode lain)
+    NL_MEANS,
+    // Menjaga tepi tetap tajam, jauh lebih cepat dari NL-means
+    BILATERAL,
+    // Sangat cepat, bagus untuk noise titik (salt & pepper) pada foto HP
+    MEDIAN,
+    // Paling murah, tepi ikut sedikit blur
+    GAUSSIAN,
+    NONE;
+
+    /*
+     * Jarak terjauh (pixel) dari tetangga yang mempengaruhi satu pixel output.
+     * Dipakai sebagai halo saat denoise dijalankan per tile.
+     */
+    public int radius(float strength) {
+        switch (this) {
+            case NL_MEANS:
+                // templateWindowSize / 2 + searchWindowSize / 2
+                return 7 / 2 + 21 / 2;
+            case BILATERAL:
+                return 7 / 2;
+            case MEDIAN:
+                return (strength >= 5 ? 5 : 3) / 2;
+            case GAUSSIAN:
+                // Kernel 8-bit OpenCV: ukuran round(sigma * 6 + 1) | 1
+                return (int) Math.ceil((strength >= 5 ? 1.2 : 0.6) * 3);
+            case NONE:
+            default:
+                return 0;
+        }
+    }
+
+    public void apply(Mat src, Mat dst, float strength) {
+        switch (this) {
+            case NL_MEANS:
+                /*
+                 * templateWindowSize: 7 - Size of template patch
+                 * searchWindowSize: 21 - Size of window used to compare patches
+                 */
+                if (src.channels() == 1) {
+                    fastNlMeansDenoising(src, dst, strength, 7, 21);
+                } else {
+                    fastNlMeansDenoisingColored(src, dst, strength, strength, 7, 21);
+                }
+                break;
+            case BILATERAL:
+                /*
+                 * d: 7 - diameter neighborhood
+                 * sigmaColor: 5 * strength - perbedaan warna yang masih dianggap satu area
+                 * sigmaSpace: 5
+                 */
+                bilateralFilter(src, dst, 7, 5 * strength, 5);
+                break;
+            case MEDIAN:
+                medianBlur(src, dst, strength >= 5 ? 5 : 3);
+                break;
+            case GAUSSIAN:
+                GaussianBlur(src, dst, new Size(0, 0), strength >= 5 ? 1.2 : 0.6);
+                break;
+            case NONE:
+            default:
+                src.copyTo(dst);
+                break;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.scanner.processor;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point2f;
+
+/*
+ * Hasil satu kali deteksi dokumen: gambar resolusi deteksi, edge map, garis Hough,
+ * intersections dan 4 sudut.
+ * Semua konsumen (koreksi perspektif, debug output) memakai hasil yang sama
+ * sehingga edge detection cukup dihitung sekali per scan.
+ *
+ * Memegang memori native (gambar kecil dan edge map), jadi wajib di-close
+ * (gunakan try-with-resources).
+ */
+public class DetectionResult implements AutoCloseable {
+
+    private final Mat image;
+    private final Mat edges;
+    private final double scale;
+    private HoughLineSet lines;
+    private IntersectionBuffer intersections = new IntersectionBuffer(0);
+    private Point2f[] corners;
+    private double confidence;
+    private String cornerStrategy;
+
+    DetectionResult(Mat image, Mat edges, double scale) {
+        this.image = image;
+        this.edges = edges;
+        this.scale = scale;
+    }
+
+    /*
+     * Gambar BGR yang sudah diperkecil ke resolusi deteksi.
+     */
+    public Mat getImage() {
+        return image;
+    }
+
+    /*
+     * Edge map, garis dan intersections berada di resolusi deteksi (diperkecil).
+     */
+    public Mat getEdges() {
+        return edges;
+    }
+
+    public HoughLineSet getLines() {
+        return lines;
+    }
+
+    void setLines(HoughLineSet lines) {
+        this.lines = lines;
+    }
+
+    public IntersectionBuffer getIntersections() {
+        return intersections;
+    }
+
+    void setIntersections(IntersectionBuffer intersections) {
+        this.intersections = intersections;
+    }
+
+    /*
+     * Faktor resolusi deteksi terhadap gambar asli (<= 1).
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /*
+     * Sudut di resolusi penuh (sub-pixel).
+     * Urutan: top-left, top-right, bottom-right, bottom-left.
+     * Null jika dokumen tidak terdeteksi.
+     */
+    public Point2f[] getCorners() {
+        return corners;
+    }
+
+    void setCorners(Point2f[] corners) {
+        this.corners = corners;
+    }
+
+    /*
+     * Skor kepercayaan sudut (0..1), 0 jika dokumen tidak terdeteksi.
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    void setConfidence(double confidence) {
+        this.confidence = confidence;
+    }
+
+    /*
+     * Nama CornerDetector yang menghasilkan sudut, null jika tidak terdeteksi.
+     */
+    public String getCornerStrategy() {
+        return cornerStrategy;
+    }
+
+    void setCornerStrategy(String cornerStrategy) {
+        this.cornerStrategy = cornerStrategy;
+    }
+
+    public boolean isSuccessful() {
+        return corners != null;
+    }
+
+    @Override
+    public void close() {
+        image.release();
+        edges.release();
+    }
+}
@@ -0,0 +1,102 @@
+package com.scanner.processor;
+
+/*
+ * Strategi terakhir: sudut manual dari konfigurasi, atau (jika diaktifkan) sudut dari
+ * scan terakhir yang berhasil.
+ *
+ * Sudut disimpan dalam koordinat relatif (0..1) sehingga tetap berlaku walaupun
+ * resolusi gambar berikutnya berbeda. Keduanya hanya masuk akal untuk rangkaian foto
+ * dengan posisi kamera yang sama, jadi defaultnya mati:
+ * - "scanner.corners.manual=x1,y1,x2,y2,x3,y3,x4,y4": sudut relatif top-left, top-right,
+ *   bottom-right, bottom-left (BatchScannerApp --corners)
+ * - "scanner.corners.reusePrevious=true": sudut scan terakhir yang berhasil
+ * Keduanya ikut kunci ResultCache, jadi sudut manual tidak bisa diubah saat berjalan.
+ */
+public class FallbackCornerDetector implements CornerDetector {
+
+    public static final String MANUAL_PROPERTY = "scanner.corners.manual";
+
+    private final CornerQuad manual;
+    private final boolean reusePrevious;
+    private volatile CornerQuad previous;
+
+    public FallbackCornerDetector() {
+        this(manualFromSystemProperties(), Boolean.getBoolean("scanner.corners.reusePrevious"));
+    }
+
+    /*
+     * manual dalam koordinat relatif, null jika tidak ada.
+     */
+    public FallbackCornerDetector(CornerQuad manual, boolean reusePrevious) {
+        this.manual = manual;
+        this.reusePrevious = reusePrevious;
+    }
+
+    /*
+     * "x1,y1,x2,y2,x3,y3,x4,y4" relatif 0..1; IllegalArgumentException jika tidak valid.
+     */
+    public static CornerQuad parseCorners(String text) {
+        String[] parts = text.trim().split("\\s*,\\s*");
+        if (parts.length != 8) {
+            throw new IllegalArgumentException("Sudut manual butuh 8 angka (x1,y1,...,x4,y4): " + text);
+        }
+        float[] coords = new float[8];
+        for (int i = 0; i < 8; i++) {
+            try {
+                coords[i] = Float.parseFloat(parts[i]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Sudut manual bukan angka: " + text);
+            }
+            if (!(coords[i] >= 0 && coords[i] <= 1)) {
+                throw new IllegalArgumentException("Sudut manual harus relatif 0..1: " + text);
+            }
+        }
+        return new CornerQuad(coords, 1.0);
+    }
+
+    private static CornerQuad manualFromSystemProperties() {
+        String value = System.getProperty(MANUAL_PROPERTY);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return parseCorners(value);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage() + ", sudut manual diabaikan");
+            return null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        if (manual != null) {
+            return "fallback(manual)";
+        }
+        return reusePrevious ? "fallback(previous)" : "fallback";
+    }
+
+    @Override
+    public CornerQuad detect(DetectionResult result, ProcessingProfile profile) {
+        CornerQuad source = manual != null ? manual : (reusePrevious ? previous : null);
+        if (source == null) {
+            return null;
+        }
+        return scale(source, result.getEdges().cols(), result.getEdges().rows());
+    }
+
+    @Override
+    public void accepted(CornerQuad quad, DetectionResult result) {
+        if (reusePrevious) {
+            previous = scale(quad, 1.0 / result.getEdges().cols(), 1.0 / result.getEdges().rows());
+        }
+    }
+
+    private static CornerQuad scale(CornerQuad quad, double scaleX, double scaleY) {
+        float[] coords = new float[8];
+        for (int i = 0; i < 4; i++) {
+            coords[i * 2] = (float) (quad.x(i) * scaleX);
+            coords[i * 2 + 1] = (float) (quad.y(i) * scaleY);
+        }
+        return new CornerQuad(coords, quad.getConfidence());
+    }
+}
@@ -0,0 +1,306 @@
+package com.scanner.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC;
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC1;
+import static org.bytedeco.opencv.global.opencv_core.LUT;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/*
+ * Rangkaian filter yang dideklarasikan sebagai data, misalnya
+ *   "bgr -> denoise(2) -> unsharp(0.2, 0.5) -> clahe(1.2, 8) -> gamma(0.9)"
+ * (lihat FilterStage untuk daftar langkah).
+ *
+ * Spesifikasi di-parse dan divalidasi sekali saat chain dibuat: nama/argumen langkah, dan
+ * alur jumlah channel untuk input BGR maupun grayscale (misalnya otsu tanpa gray ditolak).
+ * Saat itu juga langkah digabung menjadi pass:
+ * - langkah PIXEL yang berurutan menjadi satu tabel LUT (satu lintasan, bukan satu per langkah)
+ * - langkah LOCAL yang berurutan (bersama LUT di antaranya) dijalankan dalam satu lintasan
+ *   TiledExecutor dengan halo = jumlah radius, jadi setiap tile melewati semua langkah
+ *   selagi masih di cache dan gambar perantara seukuran halaman tidak pernah dibuat
+ * - langkah GLOBAL berdiri sendiri
+ * Mat perantara antar pass diambil dari ScanScope (buffer pool); hanya hasil akhir yang
+ * dialokasi baru karena dikembalikan ke pemanggil.
+ *
+ * Immutable dan thread-safe; langkah yang punya state per thread (CLAHE) mengurusnya sendiri.
+ */
+public final class FilterChain {
+
+    private final String name;
+    private final String specification;
+    private final List<Pass> passes;
+
+    private FilterChain(String name, String specification, List<Pass> passes) {
+        this.name = name;
+        this.specification = specification;
+        this.passes = passes;
+    }
+
+    /*
+     * IllegalArgumentException jika spesifikasi tidak valid.
+     */
+    public static FilterChain parse(String name, String specification) {
+        List<FilterStage> stages = new ArrayList<>();
+        for (String token : specification.split("->|→")) {
+            if (token.isBlank()) {
+                throw new IllegalArgumentException("Langkah kosong di filter \"" + name + "\"");
+            }
+            stages.add(FilterStage.parse(token));
+        }
+        try {
+            validate(stages, 3);
+            validate(stages, 1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Filter \"" + name + "\": " + e.getMessage(), e);
+        }
+        return new FilterChain(name, specification.trim(), compile(stages));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSpecification() {
+        return specification;
+    }
+
+    private static void validate(List<FilterStage> stages, int channels) {
+        for (FilterStage stage : stages) {
+            channels = stage.outputChannels(channels);
+        }
+    }
+
+    /*
+     * Mengelompokkan langkah menjadi pass (lihat komentar kelas).
+     */
+    private static List<Pass> compile(List<FilterStage> stages) {
+        List<Pass> passes = new ArrayList<>();
+        List<FilterStage> run = new ArrayList<>();
+        for (FilterStage stage : stages) {
+            if (stage.kind() == FilterStage.Kind.GLOBAL) {
+                flush(run, passes);
+                passes.add(new StagePass(stage));
+            } else {
+                run.add(stage);
+            }
+        }
+        flush(run, passes);
+        return Collections.unmodifiableList(passes);
+    }
+
+    private static void flush(List<FilterStage> run, List<Pass> passes) {
+        if (run.isEmpty()) {
+            return;
+        }
+        // Langkah PIXEL berurutan dilebur ke satu LUT
+        List<Pass> steps = new ArrayList<>();
+        List<FilterStage> locals = new ArrayList<>();
+        List<FilterStage.PixelStage> pixels = new ArrayList<>();
+        for (FilterStage stage : run) {
+            if (stage instanceof FilterStage.PixelStage) {
+                pixels.add((FilterStage.PixelStage) stage);
+                continue;
+            }
+            if (!pixels.isEmpty()) {
+                steps.add(new LookupTable(pixels));
+                pixels = new ArrayList<>();
+            }
+            steps.add(new StagePass(stage));
+            locals.add(stage);
+        }
+        if (!pixels.isEmpty()) {
+            steps.add(new LookupTable(pixels));
+        }
+        passes.add(locals.isEmpty() ? steps.get(0) : new TiledPass(steps, locals));
+        run.clear();
+    }
+
+    /*
+     * input hanya dibaca. Hasil selalu Mat baru milik pemanggil.
+     */
+    Mat apply(Mat input, ProcessingProfile profile, DebugSink debugSink) {
+        String debugPrefix = "filters/" + name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_") + "/";
+        // Konversi yang tidak mengubah apa pun (gray pada input 1 channel) dilewati
+        List<Pass> active = new ArrayList<>();
+        int[] activeChannels = new int[passes.size()];
+        int flowChannels = input.channels();
+        for (Pass pass : passes) {
+            if (!pass.isIdentity(flowChannels)) {
+                flowChannels = pass.outputChannels(flowChannels);
+                activeChannels[active.size()] = flowChannels;
+                active.add(pass);
+            }
+        }
+
+        Mat current = input;
+        for (int i = 0; i < active.size(); i++) {
+            Pass pass = active.get(i);
+            int outputChannels = activeChannels[i];
+            // Hasil akhir dikembalikan ke pemanggil, jadi tidak diambil dari pool
+            Mat output = i == active.size() - 1
+                    ? new Mat(input.rows(), input.cols(), CV_8UC(outputChannels))
+                    : ScanScope.acquire(input.rows(), input.cols(), CV_8UC(outputChannels));
+            pass.apply(current, output, profile);
+            debugSink.write(debugPrefix + String.format(Locale.ROOT, "%02d_%s", i + 1, pass.label()), output);
+            if (current != input) {
+                current.release();
+            }
+            current = output;
+        }
+        return current == input ? input.clone() : current;
+    }
+
+    @Override
+    public String toString() {
+        return name + " = " + specification;
+    }
+
+    private interface Pass {
+        String label();
+
+        int outputChannels(int inputChannels);
+
+        boolean isIdentity(int inputChannels);
+
+        void apply(Mat src, Mat dst, ProcessingProfile profile);
+    }
+
+    private static final class StagePass implements Pass {
+        private final FilterStage stage;
+
+        StagePass(FilterStage stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public String label() {
+            return stage.name();
+        }
+
+        @Override
+        public int outputChannels(int inputChannels) {
+            return stage.outputChannels(inputChannels);
+        }
+
+        @Override
+        public boolean isIdentity(int inputChannels) {
+            return stage.isIdentity(inputChannels);
+        }
+
+        @Override
+        public void apply(Mat src, Mat dst, ProcessingProfile profile) {
+            stage.apply(src, dst, profile);
+        }
+    }
+
+    /*
+     * Gabungan langkah PIXEL berurutan: tabel 256 entri hasil komposisi semua langkah,
+     * diterapkan ke setiap channel dengan satu panggilan LUT.
+     */
+    private static final class LookupTable implements Pass {
+        private final String label;
+        private final Mat table;
+
+        LookupTable(List<FilterStage.PixelStage> stages) {
+            StringBuilder joined = new StringBuilder();
+            for (FilterStage.PixelStage stage : stages) {
+                joined.append(joined.length() > 0 ? "+" : "").append(stage.name());
+            }
+            this.label = joined.toString();
+            // Dipakai semua scan berikutnya, jadi tidak boleh ikut dibebaskan ScanScope
+            this.table = ScanScope.retain(new Mat(1, 256, CV_8UC1));
+            UByteIndexer indexer = table.createIndexer();
+            for (int value = 0; value < 256; value++) {
+                int mapped = value;
+                for (FilterStage.PixelStage stage : stages) {
+                    mapped = stage.map(mapped);
+                }
+                indexer.put(0, value, mapped);
+            }
+            indexer.release();
+        }
+
+        @Override
+        public String label() {
+            return label;
+        }
+
+        @Override
+        public int outputChannels(int inputChannels) {
+            return inputChannels;
+        }
+
+        @Override
+        public boolean isIdentity(int inputChannels) {
+            return false;
+        }
+
+        @Override
+        public void apply(Mat src, Mat dst, ProcessingProfile profile) {
+            LUT(src, table, dst);
+        }
+    }
+
+    /*
+     * Langkah LOCAL (dan LUT di antaranya) yang dijalankan berurutan pada setiap tile.
+     */
+    private static final class TiledPass implements Pass {
+        private final List<Pass> steps;
+        private final List<FilterStage> locals;
+        private final String label;
+
+        TiledPass(List<Pass> steps, List<FilterStage> locals) {
+            this.steps = steps;
+            this.locals = locals;
+            StringBuilder joined = new StringBuilder();
+            for (Pass step : steps) {
+                joined.append(joined.length() > 0 ? "+" : "").append(step.label());
+            }
+            this.label = joined.toString();
+        }
+
+        @Override
+        public String label() {
+            return label;
+        }
+
+        @Override
+        public int outputChannels(int inputChannels) {
+            return inputChannels;
+        }
+
+        @Override
+        public boolean isIdentity(int inputChannels) {
+            return false;
+        }
+
+        @Override
+        public void apply(Mat src, Mat dst, ProcessingProfile profile) {
+            int halo = 0;
+            for (FilterStage stage : locals) {
+                halo += stage.radius(profile, src.channels());
+            }
+            TiledExecutor.apply(src, dst, halo, (tile, out) -> applySteps(tile, out, profile));
+        }
+
+        /*
+         * Bisa berjalan di thread TiledExecutor (di luar ScanScope): Mat perantara di-release sendiri.
+         */
+        private void applySteps(Mat src, Mat dst, ProcessingProfile profile) {
+            Mat current = src;
+            for (int i = 0; i < steps.size(); i++) {
+                Mat output = i == steps.size() - 1 ? dst : new Mat();
+                steps.get(i).apply(current, output, profile);
+                if (current != src) {
+                    current.release();
+                }
+                current = output;
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.scanner.processor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * Daftar filter yang bisa dipilih (GUI, --filter di batch/video), masing-masing sebuah FilterChain.
+ *
+ * Tiga mode lama dan "Hitam Putih Adaptif" tersedia sebagai preset bawaan. Preset tambahan
+ * dibaca sekali dari file "-Dscanner.filters=filters.conf", satu preset per baris:
+ *
+ *   # komentar
+ *   Tajam = bgr -> denoise(2) -> unsharp(0.5, 1.0) -> clahe(2.0, 8) -> gamma(0.9)
+ *   Fotokopi = gray -> denoise(3, median) -> levels(40, 220) -> sauvola
+ *
+ * Nama tidak membedakan huruf besar/kecil; preset dari file dengan nama yang sama menggantikan
+ * preset bawaan. Baris yang tidak valid dilaporkan ke stderr dan dilewati.
+ */
+public final class FilterPresets {
+
+    public static final String ORIGINAL = "Asli";
+    public static final String BLACK_AND_WHITE = "Hitam Putih";
+    public static final String ADAPTIVE_BLACK_AND_WHITE = "Hitam Putih Adaptif";
+    public static final String ENHANCED = "Ditingkatkan";
+
+    // Kunci huruf kecil, urutan sesuai pendaftaran (urutan di GUI)
+    private static final Map<String, FilterChain> PRESETS = load(System.getProperty("scanner.filters"));
+
+    private FilterPresets() {
+    }
+
+    /*
+     * Preset dengan nama tersebut, atau "Asli" jika tidak dikenal (sama seperti switch lama).
+     */
+    public static FilterChain get(String name) {
+        FilterChain chain = name != null ? PRESETS.get(name.toLowerCase(Locale.ROOT)) : null;
+        return chain != null ? chain : PRESETS.get(ORIGINAL.toLowerCase(Locale.ROOT));
+    }
+
+    /*
+     * true jika ada preset dengan nama tersebut (tanpa membedakan huruf besar/kecil).
+     */
+    public static boolean contains(String name) {
+        return name != null && PRESETS.containsKey(name.toLowerCase(Locale.ROOT));
+    }
+
+    public static List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (FilterChain chain : PRESETS.values()) {
+            names.add(chain.getName());
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    private static Map<String, FilterChain> load(String file) {
+        Map<String, FilterChain> presets = new LinkedHashMap<>();
+        register(presets, FilterChain.parse(ORIGINAL, "bgr"));
+        register(presets, FilterChain.parse(BLACK_AND_WHITE, "gray -> denoise(3) -> otsu -> bgr"));
+        register(presets, FilterChain.parse(ADAPTIVE_BLACK_AND_WHITE, "gray -> sauvola"));
+        register(presets, FilterChain.parse(ENHANCED, "bgr -> denoise(2) -> unsharp(0.2, 0.5) -> clahe(1.2, 8)"));
+
+        if (file == null || file.isBlank()) {
+            return presets;
+        }
+        Path path = Paths.get(file);
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Gagal membaca preset filter " + path + ": " + e.getMessage());
+            return presets;
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int separator = line.indexOf('=');
+            if (separator <= 0) {
+                System.err.println(path + ":" + (i + 1) + ": format harus \"nama = langkah -> langkah\"");
+                continue;
+            }
+            try {
+                register(presets, FilterChain.parse(line.substring(0, separator).trim(), line.substring(separator + 1)));
+            } catch (IllegalArgumentException e) {
+                System.err.println(path + ":" + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        return presets;
+    }
+
+    private static void register(Map<String, FilterChain> presets, FilterChain chain) {
+        presets.put(chain.getName().toLowerCase(Locale.ROOT), chain);
+    }
+}
@@ -0,0 +1,454 @@
+package com.scanner.processor;
+
+import java.util.Locale;
+
+import static org.bytedeco.opencv.global.opencv_core.BORDER_DEFAULT;
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC1;
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+import static org.bytedeco.opencv.global.opencv_core.LUT;
+import static org.bytedeco.opencv.global.opencv_core.addWeighted;
+import static org.bytedeco.opencv.global.opencv_core.extractChannel;
+import static org.bytedeco.opencv.global.opencv_core.insertChannel;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGR2GRAY;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGR2YUV;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_GRAY2BGR;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_YUV2BGR;
+import static org.bytedeco.opencv.global.opencv_imgproc.GaussianBlur;
+import static org.bytedeco.opencv.global.opencv_imgproc.THRESH_BINARY;
+import static org.bytedeco.opencv.global.opencv_imgproc.THRESH_OTSU;
+import static org.bytedeco.opencv.global.opencv_imgproc.createCLAHE;
+import static org.bytedeco.opencv.global.opencv_imgproc.cvtColor;
+import static org.bytedeco.opencv.global.opencv_imgproc.threshold;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.bytedeco.opencv.opencv_imgproc.CLAHE;
+
+/*
+ * Satu langkah dalam FilterChain, ditulis di spesifikasi sebagai nama(argumen, ...):
+ *
+ *   gray                   BGR -> 1 channel
+ *   bgr                    1 channel -> BGR
+ *   denoise(kekuatan[, metode])
+ *                          Denoiser profil (hitam putih untuk 1 channel, enhanced untuk BGR),
+ *                          atau metode tertentu: nl_means, bilateral, median, gaussian
+ *   unsharp(jumlah, sigma) src * (1 + jumlah) - blur * jumlah
+ *   clahe(clip, tile)      CLAHE; pada BGR hanya kanal Y (YUV), warna tidak berubah
+ *   otsu                   threshold Otsu global, butuh 1 channel
+ *   sauvola                threshold lokal AdaptiveBinarizer, butuh 1 channel
+ *   gamma(g), contrast(alpha, beta), levels(hitam, putih), threshold(t), invert
+ *                          operasi per pixel; berurutan digabung menjadi satu LUT
+ *
+ * Jenis langkah menentukan cara FilterChain menggabungkannya:
+ * - PIXEL: hasil hanya bergantung pada nilai pixel itu sendiri (turunan PixelStage)
+ * - LOCAL: hasil bergantung pada tetangga dalam radius tertentu, aman dijalankan per tile
+ * - GLOBAL: butuh seluruh gambar (statistik halaman) atau mengubah jumlah channel
+ */
+abstract class FilterStage {
+
+    enum Kind {
+        PIXEL,
+        LOCAL,
+        GLOBAL
+    }
+
+    private final String name;
+
+    FilterStage(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    abstract Kind kind();
+
+    /*
+     * Jumlah channel hasil untuk input dengan jumlah channel tersebut, atau
+     * IllegalArgumentException jika langkah ini tidak bisa menerimanya.
+     */
+    int outputChannels(int inputChannels) {
+        return inputChannels;
+    }
+
+    /*
+     * true jika langkah tidak mengubah apa pun untuk input ini (misalnya gray pada 1 channel).
+     */
+    boolean isIdentity(int inputChannels) {
+        return false;
+    }
+
+    /*
+     * Halo untuk langkah LOCAL.
+     */
+    int radius(ProcessingProfile profile, int channels) {
+        return 0;
+    }
+
+    /*
+     * dst sudah dialokasi dengan ukuran hasil. Langkah LOCAL bisa dipanggil dari thread
+     * TiledExecutor (di luar ScanScope), jadi tidak boleh memakai ScanScope.acquire dan harus
+     * me-release Mat sementaranya sendiri.
+     */
+    abstract void apply(Mat src, Mat dst, ProcessingProfile profile);
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    static FilterStage parse(String token) {
+        String text = token.trim();
+        String name = text;
+        String[] args = new String[0];
+        int open = text.indexOf('(');
+        if (open >= 0) {
+            if (!text.endsWith(")")) {
+                throw new IllegalArgumentException("Kurung tidak ditutup: " + text);
+            }
+            name = text.substring(0, open).trim();
+            String inner = text.substring(open + 1, text.length() - 1).trim();
+            args = inner.isEmpty() ? new String[0] : inner.split("\\s*,\\s*");
+        }
+
+        String key = name.toLowerCase(Locale.ROOT);
+        switch (key) {
+            case "gray":
+                expect(text, args, 0, 0);
+                return new Gray();
+            case "bgr":
+                expect(text, args, 0, 0);
+                return new Bgr();
+            case "denoise":
+                expect(text, args, 1, 2);
+                return new Denoise(number(text, args[0]),
+                        args.length > 1 ? denoiser(text, args[1]) : null);
+            case "unsharp":
+                expect(text, args, 2, 2);
+                return new Unsharp(number(text, args[0]), number(text, args[1]));
+            case "clahe":
+                expect(text, args, 2, 2);
+                return new Clahe(number(text, args[0]), (int) number(text, args[1]));
+            case "otsu":
+                expect(text, args, 0, 0);
+                return new Otsu();
+            case "sauvola":
+                expect(text, args, 0, 0);
+                return new Sauvola();
+            case "gamma": {
+                expect(text, args, 1, 1);
+                double gamma = number(text, args[0]);
+                if (gamma <= 0) {
+                    throw new IllegalArgumentException("gamma harus positif: " + text);
+                }
+                return new PixelMap(key, value -> 255 * Math.pow(value / 255.0, 1 / gamma));
+            }
+            case "contrast": {
+                expect(text, args, 2, 2);
+                double alpha = number(text, args[0]);
+                double beta = number(text, args[1]);
+                return new PixelMap(key, value -> alpha * value + beta);
+            }
+            case "levels": {
+                expect(text, args, 2, 2);
+                double black = number(text, args[0]);
+                double white = number(text, args[1]);
+                if (white <= black) {
+                    throw new IllegalArgumentException("levels: putih harus lebih besar dari hitam: " + text);
+                }
+                return new PixelMap(key, value -> (value - black) * 255 / (white - black));
+            }
+            case "threshold": {
+                expect(text, args, 1, 1);
+                double limit = number(text, args[0]);
+                return new PixelMap(key, value -> value > limit ? 255 : 0);
+            }
+            case "invert":
+                expect(text, args, 0, 0);
+                return new PixelMap(key, value -> 255 - value);
+            default:
+                throw new IllegalArgumentException("Langkah filter tidak dikenal: " + name);
+        }
+    }
+
+    private static void expect(String text, String[] args, int min, int max) {
+        if (args.length < min || args.length > max) {
+            throw new IllegalArgumentException("Jumlah argumen salah: " + text);
+        }
+    }
+
+    private static double number(String text, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Argumen bukan angka: " + text);
+        }
+    }
+
+    private static Denoiser denoiser(String text, String value) {
+        try {
+            return Denoiser.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Metode denoise tidak dikenal: " + text);
+        }
+    }
+
+    private static final class Gray extends FilterStage {
+        Gray() {
+            super("gray");
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.GLOBAL;
+        }
+
+        @Override
+        int outputChannels(int inputChannels) {
+            return 1;
+        }
+
+        @Override
+        boolean isIdentity(int inputChannels) {
+            return inputChannels == 1;
+        }
+
+        @Override
+        void apply(Mat src, Mat dst, ProcessingProfile profile) {
+            cvtColor(src, dst, COLOR_BGR2GRAY);
+        }
+    }
+
+    private static final class Bgr extends FilterStage {
+        Bgr() {
+            super("bgr");
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.GLOBAL;
+        }
+
+        @Override
+        int outputChannels(int inputChannels) {
+            return 3;
+        }
+
+        @Override
+        boolean isIdentity(int inputChannels) {
+            return inputChannels == 3;
+        }
+
+        @Override
+        void apply(Mat src, Mat dst, ProcessingProfile profile) {
+            cvtColor(src, dst, COLOR_GRAY2BGR);
+        }
+    }
+
+    private static final class Denoise extends FilterStage {
+        private final float strength;
+        // null = ikut profil
+        private final Denoiser method;
+
+        Denoise(double strength, Denoiser method) {
+            super("denoise");
+            this.strength = (float) strength;
+            this.method = method;
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.LOCAL;
+        }
+
+        private Denoiser denoiser(ProcessingProfile profile, int channels) {
+            if (method != null) {
+                return method;
+            }
+            return channels == 1 ? profile.getBlackAndWhiteDenoiser() : profile.getEnhancedDenoiser();
+        }
+
+        @Override
+        int radius(ProcessingProfile profile, int channels) {
+            return denoiser(profile, channels).radius(strength);
+        }
+
+        @Override
+        void apply(Mat src, Mat dst, ProcessingProfile profile) {
+            denoiser(profile, src.channels()).apply(src, dst, strength);
+        }
+    }
+
+    private static final class Unsharp extends FilterStage {
+        private final double amount;
+        private final double sigma;
+
+        Unsharp(double amount, double sigma) {
+            super("unsharp");
+            if (sigma <= 0) {
+                throw new IllegalArgumentException("unsharp: sigma harus positif");
+            }
+            this.amount = amount;
+            this.sigma = sigma;
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.LOCAL;
+        }
+
+        @Override
+        int radius(ProcessingProfile profile, int channels) {
+            // Kernel 8-bit OpenCV: ukuran round(sigma * 6 + 1) | 1
+            return ((int) Math.round(sigma * 6 + 1) | 1) / 2;
+        }
+
+        @Override
+        void apply(Mat src, Mat dst, ProcessingProfile profile) {
+            Mat blurred = new Mat();
+            GaussianBlur(src, blurred, new Size(0, 0), sigma, sigma, BORDER_DEFAULT);
+            addWeighted(src, 1 + amount, blurred, -amount, 0, dst);
+            blurred.release();
+        }
+    }
+
+    /*
+     * Objek CLAHE tidak thread-safe dan mahal dibuat, jadi satu per thread per langkah.
+     * Di-retain karena bisa dibuat di dalam ScanScope tetapi dipakai scan berikutnya.
+     */
+    private static final class Clahe extends FilterStage {
+        private final ThreadLocal<CLAHE> clahe;
+
+        Clahe(double clip, int tiles) {
+            super("clahe");
+            if (clip <= 0 || tiles <= 0) {
+                throw new IllegalArgumentException("clahe: clip dan tile harus positif");
+            }
+            this.clahe = ThreadLocal.withInitial(() -> ScanScope.retain(createCLAHE(clip, new Size(tiles, tiles))));
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.GLOBAL;
+        }
+
+        @Override
+        void apply(Mat src, Mat dst, ProcessingProfile profile) {
+            if (src.channels() == 1) {
+                clahe.get().apply(src, dst);
+                return;
+            }
+            // Hanya luminance (Y); U dan V tetap supaya warna asli tidak berubah
+            Mat yuv = ScanScope.acquire(src.rows(), src.cols(), CV_8UC3);
+            Mat luminance = ScanScope.acquire(src.rows(), src.cols(), CV_8UC1);
+            Mat enhanced = ScanScope.acquire(src.rows(), src.cols(), CV_8UC1);
+            cvtColor(src, yuv, COLOR_BGR2YUV);
+            extractChannel(yuv, luminance, 0);
+            clahe.get().apply(luminance, enhanced);
+            insertChannel(enhanced, yuv, 0);
+            cvtColor(yuv, dst, COLOR_YUV2BGR);
+            enhanced.release();
+            luminance.release();
+            yuv.release();
+        }
+    }
+
+    private static final class Otsu extends FilterStage {
+        Otsu() {
+            super("otsu");
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.GLOBAL;
+        }
+
+        @Override
+        int outputChannels(int inputChannels) {
+            if (inputChannels != 1) {
+                throw new IllegalArgumentException("otsu butuh 1 channel, tambahkan gray sebelumnya");
+            }
+            return 1;
+        }
+
+        @Override
+        void apply(Mat src, Mat dst, ProcessingProfile profile) {
+            threshold(src, dst, 0, 255, THRESH_BINARY + THRESH_OTSU);
+        }
+    }
+
+    private static final class Sauvola extends FilterStage {
+        Sauvola() {
+            super("sauvola");
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.GLOBAL;
+        }
+
+        @Override
+        int outputChannels(int inputChannels) {
+            if (inputChannels != 1) {
+                throw new IllegalArgumentException("sauvola butuh 1 channel, tambahkan gray sebelumnya");
+            }
+            return 1;
+        }
+
+        @Override
+        void apply(Mat src, Mat dst, ProcessingProfile profile) {
+            AdaptiveBinarizer.binarize(src, dst);
+        }
+    }
+
+    interface ValueFunction {
+        double apply(int value);
+    }
+
+    /*
+     * Langkah PIXEL. FilterChain biasanya melebur map beberapa langkah berurutan ke satu LUT;
+     * apply hanya untuk langkah yang dijalankan sendiri.
+     */
+    abstract static class PixelStage extends FilterStage {
+        PixelStage(String name) {
+            super(name);
+        }
+
+        @Override
+        final Kind kind() {
+            return Kind.PIXEL;
+        }
+
+        /*
+         * Nilai output 0..255 untuk nilai input 0..255.
+         */
+        abstract int map(int value);
+
+        @Override
+        void apply(Mat src, Mat dst, ProcessingProfile profile) {
+            Mat table = new Mat(1, 256, CV_8UC1);
+            UByteIndexer indexer = table.createIndexer();
+            for (int value = 0; value < 256; value++) {
+                indexer.put(0, value, map(value));
+            }
+            indexer.release();
+            LUT(src, table, dst);
+            table.release();
+        }
+    }
+
+    private static final class PixelMap extends PixelStage {
+        private final ValueFunction function;
+
+        PixelMap(String name, ValueFunction function) {
+            super(name);
+            this.function = function;
+        }
+
+        @Override
+        int map(int value) {
+            return (int) Math.max(0, Math.min(255, Math.round(function.apply(value))));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.scanner.processor;
+
+import static org.bytedeco.opencv.global.opencv_core.BORDER_CONSTANT;
+import static org.bytedeco.opencv.global.opencv_core.CV_16SC2;
+import static org.bytedeco.opencv.global.opencv_core.CV_32FC2;
+import static org.bytedeco.opencv.global.opencv_core.perspectiveTransform;
+import static org.bytedeco.opencv.global.opencv_imgproc.INTER_LINEAR;
+import static org.bytedeco.opencv.global.opencv_imgproc.convertMaps;
+import static org.bytedeco.opencv.global.opencv_imgproc.remap;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point2f;
+import org.bytedeco.opencv.opencv_core.Scalar;
+
+/*
+ * Koreksi perspektif terkunci untuk kamera tetap (posisi baki dokumen selalu sama).
+ *
+ * Saat dikunci, untuk setiap pixel output dihitung sekali posisi sumbernya (invers
+ * homography), lalu disimpan sebagai tabel fixed-point lewat convertMaps. Setiap frame
+ * berikutnya cukup satu remap: tanpa deteksi tepi, Hough maupun getPerspectiveTransform.
+ *
+ * Pergeseran baki dicek dengan murah: kontras pixel di kedua sisi keempat tepi quad
+ * (beberapa ratus pixel yang dibaca langsung dari frame BGR) dibandingkan dengan kontras
+ * saat kalibrasi. Jika turun di bawah toleransi, tepi dokumen tidak lagi berada di posisi
+ * yang dikunci dan pemanggil kembali ke deteksi penuh.
+ *
+ * Tabel dipakai bersama oleh semua thread scan (hanya dibaca), dan dibebaskan setelah
+ * pemakai terakhirnya selesai (retain/release, seperti CorrectedPageCache.Page).
+ */
+final class FixedRig {
+
+    // Titik sampel per tepi untuk cek pergeseran; ujung tepi (dekat sudut) dilewati
+    private static final int SAMPLES_PER_EDGE = 64;
+    private static final double EDGE_MARGIN = 0.1;
+
+    // Disimpan sebagai koordinat Java, Point2f milik pemanggil bisa dibebaskan ScanScope
+    private final CornerQuad corners;
+    private final int frameWidth;
+    private final int frameHeight;
+    private final int frameType;
+    private final Mat map1;
+    private final Mat map2;
+    // Jarak sampel dari garis tepi, dalam pixel frame
+    private final int offset;
+    private final double referenceContrast;
+    private final double tolerance;
+    // Satu referensi milik PerspectiveCorrector, ditambah satu per scan yang sedang memakai
+    private int references = 1;
+
+    /*
+     * inverse: homography dari koordinat output ke koordinat frame.
+     */
+    FixedRig(Mat frame, Point2f[] corners, Mat inverse, int outputWidth, int outputHeight, double tolerance) {
+        this.corners = CornerQuad.fromPoints(corners, 1.0);
+        this.frameWidth = frame.cols();
+        this.frameHeight = frame.rows();
+        this.frameType = frame.type();
+        this.tolerance = tolerance;
+        this.offset = Math.max(2, Math.max(frameWidth, frameHeight) / 800);
+
+        // Koordinat setiap pixel output, dipetakan ke frame dengan invers homography
+        Mat grid = new Mat(outputHeight, outputWidth, CV_32FC2);
+        FloatIndexer indexer = grid.createIndexer();
+        for (int y = 0; y < outputHeight; y++) {
+            for (int x = 0; x < outputWidth; x++) {
+                indexer.put(y, x, 0, x);
+                indexer.put(y, x, 1, y);
+            }
+        }
+        indexer.release();
+        Mat sourceMap = new Mat();
+        perspectiveTransform(grid, sourceMap, inverse);
+        grid.release();
+
+        // Tabel fixed-point (koordinat integer + indeks interpolasi): remap tercepat
+        map1 = ScanScope.retain(new Mat());
+        map2 = ScanScope.retain(new Mat());
+        convertMaps(sourceMap, new Mat(), map1, map2, CV_16SC2, false);
+        sourceMap.release();
+
+        this.referenceContrast = edgeContrast(frame);
+    }
+
+    CornerQuad getCorners() {
+        return corners;
+    }
+
+    /*
+     * true jika frame berukuran sama dan tepi dokumen masih di posisi kalibrasi.
+     */
+    boolean matches(Mat frame) {
+        if (frame.cols() != frameWidth || frame.rows() != frameHeight || frame.type() != frameType) {
+            return false;
+        }
+        return edgeContrast(frame) >= referenceContrast * tolerance;
+    }
+
+    /*
+     * Hasil setara warpPerspective dengan INTER_LINEAR dan latar putih.
+     */
+    Mat apply(Mat frame) {
+        Mat result = ScanScope.acquire(map1.rows(), map1.cols(), frame.type());
+        remap(frame, result, map1, map2, INTER_LINEAR, BORDER_CONSTANT, new Scalar(255, 255, 255, 0));
+        return result;
+    }
+
+    /*
+     * Rata-rata selisih intensitas antara titik di kedua sisi tepi quad.
+     */
+    private double edgeContrast(Mat frame) {
+        UByteIndexer indexer = frame.createIndexer();
+        int channels = frame.channels();
+        double total = 0;
+        int count = 0;
+        for (int i = 0; i < 4; i++) {
+            int next = (i + 1) % 4;
+            double dx = corners.x(next) - corners.x(i);
+            double dy = corners.y(next) - corners.y(i);
+            double length = Math.hypot(dx, dy);
+            if (length < 1) {
+                continue;
+            }
+            // Normal satuan tepi
+            double nx = -dy / length * offset;
+            double ny = dx / length * offset;
+            for (int s = 0; s < SAMPLES_PER_EDGE; s++) {
+                double t = EDGE_MARGIN + (1 - 2 * EDGE_MARGIN) * s / (SAMPLES_PER_EDGE - 1);
+                double px = corners.x(i) + dx * t;
+                double py = corners.y(i) + dy * t;
+                int inside = intensity(indexer, channels, px + nx, py + ny);
+                int outside = intensity(indexer, channels, px - nx, py - ny);
+                if (inside >= 0 && outside >= 0) {
+                    total += Math.abs(inside - outside);
+                    count++;
+                }
+            }
+        }
+        indexer.release();
+        return count > 0 ? total / count : 0;
+    }
+
+    /*
+     * Rata-rata channel pada pixel terdekat, -1 di luar frame.
+     */
+    private int intensity(UByteIndexer indexer, int channels, double x, double y) {
+        int column = (int) Math.round(x);
+        int row = (int) Math.round(y);
+        if (column < 0 || row < 0 || column >= frameWidth || row >= frameHeight) {
+            return -1;
+        }
+        int sum = 0;
+        for (int c = 0; c < channels; c++) {
+            sum += indexer.get(row, column, c);
+        }
+        return sum / channels;
+    }
+
+    synchronized FixedRig retain() {
+        references++;
+        return this;
+    }
+
+    synchronized void release() {
+        if (--references == 0) {
+            map1.release();
+            map2.release();
+        }
+    }
+}
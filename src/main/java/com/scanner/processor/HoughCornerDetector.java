@@ -0,0 +1,228 @@
+package com.scanner.processor;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_GRAY2BGR;
+import static org.bytedeco.opencv.global.opencv_imgproc.FONT_HERSHEY_SIMPLEX;
+import static org.bytedeco.opencv.global.opencv_imgproc.HoughLines;
+import static org.bytedeco.opencv.global.opencv_imgproc.LINE_AA;
+import static org.bytedeco.opencv.global.opencv_imgproc.circle;
+import static org.bytedeco.opencv.global.opencv_imgproc.cvtColor;
+import static org.bytedeco.opencv.global.opencv_imgproc.line;
+import static org.bytedeco.opencv.global.opencv_imgproc.putText;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_imgproc.Vec3fVector;
+
+import com.scanner.metrics.ScanMetrics;
+import com.scanner.metrics.Stage;
+
+/*
+ * Strategi Hough Lines: garis horizontal dan vertikal dicari pada rentang sudut
+ * yang relevan, intersection antar keduanya dihitung, lalu 4 sudut dipilih
+ * oleh CornerSelector. Lebih mahal dari kontur, tetapi tetap bekerja ketika
+ * tepi dokumen terputus atau tertutup sebagian.
+ */
+public class HoughCornerDetector implements CornerDetector {
+
+    // Rentang sudut (derajat) dari horizontal/vertikal yang masih dianggap tepi dokumen
+    private static final double HOUGH_ANGLE_TOLERANCE = 40;
+    // Garis dengan selisih rho < 2% diagonal dan theta < 5 derajat dianggap duplikat
+    private static final double NMS_RHO_FRACTION = 0.02;
+    private static final double NMS_THETA_DEGREES = 5;
+
+    private final DebugSink debugSink;
+
+    public HoughCornerDetector() {
+        this(DebugSink.DISABLED);
+    }
+
+    public HoughCornerDetector(DebugSink debugSink) {
+        this.debugSink = debugSink;
+    }
+
+    @Override
+    public String getName() {
+        return "hough";
+    }
+
+    @Override
+    public CornerQuad detect(DetectionResult result, ProcessingProfile profile) {
+        long start = System.nanoTime();
+        try {
+            return findCorners(result, profile);
+        } finally {
+            ScanMetrics.getInstance().record(Stage.HOUGH, start);
+        }
+    }
+
+    private CornerQuad findCorners(DetectionResult result, ProcessingProfile profile) {
+        Mat edges = result.getEdges();
+        try {
+            /*
+             * Dynamic threshold
+             * Mengambil nilai terkecil antara lebar dan tinggi gambar
+             * Membagi nilai terkecil dengan 4
+             * Mengambil nilai terbesar antara 100 dan hasil pembagian
+             */
+            int threshold = Math.max(100, Math.min(edges.cols(), edges.rows()) / 4); // Dynamic threshold
+
+            /*
+             * Hough dijalankan hanya pada rentang sudut yang relevan (min/max theta):
+             * - horizontal: theta 90 +/- HOUGH_ANGLE_TOLERANCE derajat
+             * - vertikal: theta 0..toleransi dan 180-toleransi..180 (dua pass)
+             * Hasilnya (rho, theta, votes) digabung, duplikat dibuang dengan
+             * non-maximum suppression, lalu dibatasi top-K per orientasi.
+             */
+            double tolerance = Math.toRadians(HOUGH_ANGLE_TOLERANCE);
+            double diagonal = Math.hypot(edges.cols(), edges.rows());
+            HoughLineSet lines;
+            // Vector native ditutup juga saat HoughLines gagal
+            try (Vec3fVector horizontal = new Vec3fVector();
+                    Vec3fVector verticalLow = new Vec3fVector();
+                    Vec3fVector verticalHigh = new Vec3fVector()) {
+                HoughLines(edges, horizontal, 1, Math.PI / 180, threshold, 0, 0,
+                        Math.PI / 2 - tolerance, Math.PI / 2 + tolerance);
+                HoughLines(edges, verticalLow, 1, Math.PI / 180, threshold, 0, 0, 0, tolerance);
+                HoughLines(edges, verticalHigh, 1, Math.PI / 180, threshold, 0, 0, Math.PI - tolerance, Math.PI);
+
+                lines = HoughLineSet.consolidate(
+                        new Vec3fVector[] { horizontal },
+                        new Vec3fVector[] { verticalLow, verticalHigh },
+                        Math.max(8, diagonal * NMS_RHO_FRACTION), Math.toRadians(NMS_THETA_DEGREES),
+                        profile.getHoughTopK());
+            }
+            result.setLines(lines);
+
+            System.out.println("Hough Lines detected: " + lines.size() + " lines with threshold: " + threshold);
+
+            if (lines.size() < 4) {
+                System.out.println("Tidak cukup garis untuk membentuk dokumen (minimal 4)");
+                return null;
+            }
+
+            // Debug: Gambar semua garis yang terdeteksi
+            if (debugSink.isEnabled()) {
+                Mat debugLinesColor = new Mat();
+                cvtColor(edges, debugLinesColor, COLOR_GRAY2BGR);
+                for (int i = 0; i < lines.size(); i++) {
+                    float rho = lines.rho(i);
+                    double a = lines.cos(i), b = lines.sin(i);
+                    double x0 = a * rho, y0 = b * rho;
+                    Point pt1 = new Point((int) Math.round(x0 + 1000 * (-b)), (int) Math.round(y0 + 1000 * (a)));
+                    Point pt2 = new Point((int) Math.round(x0 - 1000 * (-b)), (int) Math.round(y0 - 1000 * (a)));
+                    line(debugLinesColor, pt1, pt2, new Scalar(0, 0, 255, 255), 1, LINE_AA, 0);
+                }
+                debugSink.write("edge_detection/07_houghlines", debugLinesColor);
+                debugLinesColor.release();
+            }
+
+            // Cari semua intersections antar garis
+            IntersectionBuffer intersections = findIntersections(lines, edges.cols(), edges.rows());
+
+            result.setIntersections(intersections);
+            System.out.println("Total intersections found: " + intersections.size());
+
+            if (intersections.size() < 4) {
+                System.out.println("Tidak cukup intersections untuk membentuk quadrilateral");
+                return null;
+            }
+
+            // Debug: Gambar semua intersections
+            if (debugSink.isEnabled()) {
+                Mat debugIntersections = new Mat();
+                cvtColor(edges, debugIntersections, COLOR_GRAY2BGR);
+                for (int i = 0; i < intersections.size(); i++) {
+                    Point p = new Point(Math.round(intersections.x(i)), Math.round(intersections.y(i)));
+                    circle(debugIntersections, p, 3, new Scalar(0, 255, 255, 255), -1, LINE_AA, 0);
+                }
+                debugSink.write("edge_detection/08_intersections", debugIntersections);
+                debugIntersections.release();
+            }
+
+            // Pilih 4 sudut secara deterministik (bobot = votes garis pembentuk)
+            long clusteringStart = System.nanoTime();
+            CornerQuad corners = CornerSelector.select(intersections, edges.cols(), edges.rows());
+            ScanMetrics.getInstance().record(Stage.CLUSTERING, clusteringStart);
+
+            if (corners == null) {
+                System.out.println("Gagal memilih 4 sudut dari intersections");
+                return null;
+            }
+
+            System.out.printf("Corner confidence: %.2f%n", corners.getConfidence());
+
+            // Debug: Gambar final quadrilaterals
+            if (debugSink.isEnabled()) {
+                Mat debugQuadrilaterals = new Mat();
+                cvtColor(edges, debugQuadrilaterals, COLOR_GRAY2BGR);
+                for (int i = 0; i < 4; i++) {
+                    Point p = new Point(Math.round(corners.x(i)), Math.round(corners.y(i)));
+                    circle(debugQuadrilaterals, p, 8, new Scalar(0, 255, 0, 255), -1, LINE_AA, 0);
+                    putText(debugQuadrilaterals, String.valueOf(i),
+                            new Point(p.x() + 10, p.y()),
+                            FONT_HERSHEY_SIMPLEX, 0.7,
+                            new Scalar(255, 255, 255, 255), 2, LINE_AA, false);
+                }
+                debugSink.write("edge_detection/09_quadrilaterals", debugQuadrilaterals);
+                debugQuadrilaterals.release();
+            }
+
+            return corners;
+
+        } catch (Exception e) {
+            System.err.println("Error dalam Hough Lines detection: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Hanya pasangan garis horizontal x vertikal yang diuji (garis dalam satu kelompok
+     * tidak mungkin membentuk sudut dokumen), memakai sin/cos yang sudah dihitung.
+     * Jika sudut antara kedua garis 80-100 derajat, maka hitung intersection.
+     * Pastikan intersection berada dalam batas gambar.
+     */
+    private IntersectionBuffer findIntersections(HoughLineSet lines, int width, int height) {
+        int horizontalCount = lines.horizontalCount();
+        IntersectionBuffer intersections = new IntersectionBuffer(
+                Math.min(4096, horizontalCount * lines.verticalCount()));
+
+        // |cos(theta1 - theta2)| <= cos(80 derajat) <=> sudut antar garis 80-100 derajat
+        double maxCosAngle = Math.cos(Math.toRadians(80));
+
+        for (int i = 0; i < horizontalCount; i++) {
+            double rho1 = lines.rho(i);
+            double cosT1 = lines.cos(i), sinT1 = lines.sin(i);
+
+            for (int j = horizontalCount; j < lines.size(); j++) {
+                double cosT2 = lines.cos(j), sinT2 = lines.sin(j);
+
+                // cos(theta1 - theta2) = cosT1 * cosT2 + sinT1 * sinT2
+                if (Math.abs(cosT1 * cosT2 + sinT1 * sinT2) > maxCosAngle) {
+                    continue;
+                }
+
+                double denominator = cosT1 * sinT2 - cosT2 * sinT1;
+                /**
+                 * Karena perhitungan komputer dengan angka desimal (floating-point)
+                 * bisa memiliki sedikit error presisi, kita tidak memeriksa denominator == 0.
+                 * Sebaliknya, kita memeriksa apakah nilai absolutnya sangat-sangat kecil
+                 * (kurang dari 0.0000000001).
+                 */
+                if (Math.abs(denominator) < 1e-10) {
+                    // Garis paralel
+                    continue;
+                }
+
+                double rho2 = lines.rho(j);
+                double x = (sinT2 * rho1 - sinT1 * rho2) / denominator;
+                double y = (cosT1 * rho2 - cosT2 * rho1) / denominator;
+
+                if (x >= 0 && x < width && y >= 0 && y < height) {
+                    intersections.add((float) x, (float) y, lines.votes(i) + lines.votes(j));
+                }
+            }
+        }
+        return intersections;
+    }
+}
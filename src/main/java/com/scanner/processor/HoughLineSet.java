@@ -0,0 +1,174 @@
+package com.scanner.processor;
+
+import java.util.Arrays;
+
+import org.bytedeco.opencv.opencv_core.Point3f;
+import org.bytedeco.opencv.opencv_imgproc.Vec3fVector;
+
+/*
+ * Garis hasil HoughLines dalam array primitif.
+ *
+ * Garis disalin sekali dari vector native, sin/cos dihitung sekali per garis,
+ * lalu dikelompokkan: garis mendekati horizontal di indeks [0, horizontalCount)
+ * dan garis mendekati vertikal di indeks [horizontalCount, size).
+ * Pencarian intersection cukup memasangkan garis antar kelompok.
+ */
+public final class HoughLineSet {
+
+    private final int size;
+    private final int horizontalCount;
+    private final float[] rho;
+    private final float[] theta;
+    private final float[] votes;
+    private final double[] cos;
+    private final double[] sin;
+
+    private HoughLineSet(int size, int horizontalCount) {
+        this.size = size;
+        this.horizontalCount = horizontalCount;
+        this.rho = new float[size];
+        this.theta = new float[size];
+        this.votes = new float[size];
+        this.cos = new double[size];
+        this.sin = new double[size];
+    }
+
+    /*
+     * Menggabungkan hasil beberapa pass HoughLines (Vec3f: rho, theta, votes):
+     * 1. Garis vertikal dengan theta mendekati 180 derajat dinormalisasi ke theta negatif
+     *    (rho dibalik) supaya garis yang sama dari kedua ujung rentang bisa dibandingkan
+     * 2. Non-maximum suppression di ruang (rho, theta): garis yang terlalu dekat dengan
+     *    garis lain yang votes-nya lebih besar dibuang (duplikat dari tepi yang sama)
+     * 3. Hanya topK garis dengan votes terbesar per orientasi yang disimpan
+     */
+    static HoughLineSet consolidate(Vec3fVector[] horizontalPasses, Vec3fVector[] verticalPasses,
+            double rhoTolerance, double thetaTolerance, int topK) {
+        Candidates horizontal = Candidates.read(horizontalPasses, false);
+        Candidates vertical = Candidates.read(verticalPasses, true);
+
+        int[] keptHorizontal = horizontal.suppress(rhoTolerance, thetaTolerance, topK);
+        int[] keptVertical = vertical.suppress(rhoTolerance, thetaTolerance, topK);
+
+        HoughLineSet lines = new HoughLineSet(keptHorizontal.length + keptVertical.length, keptHorizontal.length);
+        int target = 0;
+        for (int index : keptHorizontal) {
+            lines.set(target++, horizontal, index);
+        }
+        for (int index : keptVertical) {
+            lines.set(target++, vertical, index);
+        }
+        return lines;
+    }
+
+    private void set(int target, Candidates source, int index) {
+        rho[target] = source.rho[index];
+        theta[target] = source.theta[index];
+        votes[target] = source.votes[index];
+        cos[target] = Math.cos(theta[target]);
+        sin[target] = Math.sin(theta[target]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int horizontalCount() {
+        return horizontalCount;
+    }
+
+    public int verticalCount() {
+        return size - horizontalCount;
+    }
+
+    public float rho(int i) {
+        return rho[i];
+    }
+
+    public float theta(int i) {
+        return theta[i];
+    }
+
+    public float votes(int i) {
+        return votes[i];
+    }
+
+    public double cos(int i) {
+        return cos[i];
+    }
+
+    public double sin(int i) {
+        return sin[i];
+    }
+
+    private static final class Candidates {
+        final float[] rho;
+        final float[] theta;
+        final float[] votes;
+
+        private Candidates(int size) {
+            rho = new float[size];
+            theta = new float[size];
+            votes = new float[size];
+        }
+
+        static Candidates read(Vec3fVector[] passes, boolean vertical) {
+            int total = 0;
+            for (Vec3fVector pass : passes) {
+                total += (int) pass.size();
+            }
+
+            Candidates candidates = new Candidates(total);
+            int n = 0;
+            for (Vec3fVector pass : passes) {
+                for (long i = 0; i < pass.size(); i++) {
+                    Point3f line = pass.get(i);
+                    float r = line.x();
+                    float t = line.y();
+                    if (vertical && t > Math.PI / 2) {
+                        // (rho, theta) dan (-rho, theta - pi) adalah garis yang sama
+                        r = -r;
+                        t = (float) (t - Math.PI);
+                    }
+                    candidates.rho[n] = r;
+                    candidates.theta[n] = t;
+                    candidates.votes[n] = line.z();
+                    n++;
+                }
+            }
+            return candidates;
+        }
+
+        int[] suppress(double rhoTolerance, double thetaTolerance, int topK) {
+            int n = rho.length;
+
+            /*
+             * Urutkan berdasarkan votes tanpa boxing: votes (float positif, urutan bit-nya
+             * sama dengan urutan nilainya) di 32 bit atas, indeks di 32 bit bawah.
+             */
+            long[] order = new long[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = ((long) Float.floatToIntBits(votes[i]) << 32) | i;
+            }
+            Arrays.sort(order);
+
+            int[] kept = new int[Math.min(n, topK)];
+            int keptCount = 0;
+            for (int k = n - 1; k >= 0 && keptCount < kept.length; k--) {
+                int candidate = (int) order[k];
+                boolean duplicate = false;
+                for (int j = 0; j < keptCount; j++) {
+                    int other = kept[j];
+                    if (Math.abs(rho[candidate] - rho[other]) < rhoTolerance
+                            && Math.abs(theta[candidate] - theta[other]) < thetaTolerance) {
+                        duplicate = true;
+                        break;
+                    }
+                }
+                if (!duplicate) {
+                    kept[keptCount++] = candidate;
+                }
+            }
+            return Arrays.copyOf(kept, keptCount);
+        }
+    }
+}
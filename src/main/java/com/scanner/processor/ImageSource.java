@@ -0,0 +1,191 @@
+package com.scanner.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC1;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_COLOR;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_REDUCED_COLOR_2;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_REDUCED_COLOR_4;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_REDUCED_COLOR_8;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imdecode;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import com.scanner.metrics.ScanMetrics;
+import com.scanner.metrics.Stage;
+
+/*
+ * File gambar yang sudah dibuka tetapi belum di-decode.
+ *
+ * - Isi file di-map ke memori (FileChannel.map): hash untuk ResultCache dan imdecode
+ *   membaca langsung dari halaman file tersebut, tanpa salinan ke heap Java.
+ * - Decode selalu lewat OpenCV, jadi orientasi EXIF (foto ponsel yang diputar) ikut
+ *   diterapkan. JavaFX Image mengabaikan tag tersebut.
+ * - Tampilan, preview dan deteksi cukup memakai decode yang diperkecil (IMREAD_REDUCED_*,
+ *   untuk JPEG hanya menghitung sebagian koefisien DCT); decode resolusi penuh baru
+ *   dilakukan saat warp membutuhkannya.
+ *
+ * Ukuran asli dibaca dari header (JPEG SOF / PNG IHDR) tanpa decode. Format lain tetap
+ * bisa dibuka, hanya saja selalu di-decode penuh.
+ */
+public final class ImageSource {
+
+    // Faktor pengecilan yang didukung IMREAD_REDUCED_COLOR_*
+    private static final int[] REDUCTIONS = { 8, 4, 2 };
+
+    private final File file;
+    private final MappedByteBuffer data;
+    private final int width;
+    private final int height;
+    private String hash;
+
+    private ImageSource(File file, MappedByteBuffer data) {
+        this.file = file;
+        this.data = data;
+        int[] size = readSize(data.duplicate().order(ByteOrder.BIG_ENDIAN));
+        this.width = size[0];
+        this.height = size[1];
+    }
+
+    public static ImageSource open(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // Mapping tetap berlaku setelah channel ditutup
+            return new ImageSource(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new RuntimeException("Gagal membaca gambar: " + file, e);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /*
+     * Ukuran sebelum orientasi EXIF diterapkan, atau -1 jika format tidak dikenal.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /*
+     * Kunci ResultCache untuk isi file ini (sama dengan jalur batch).
+     */
+    public synchronized String hash() {
+        if (hash == null) {
+            hash = ResultCache.hash(data.duplicate());
+        }
+        return hash;
+    }
+
+    /*
+     * Faktor pengecilan terbesar (1, 2, 4 atau 8) yang sisi terpanjangnya masih
+     * minimal minSide pixel.
+     */
+    public int reductionFor(int minSide) {
+        int longest = Math.max(width, height);
+        for (int reduction : REDUCTIONS) {
+            if (longest / reduction >= minSide) {
+                return reduction;
+            }
+        }
+        return 1;
+    }
+
+    public Mat decode() {
+        return decode(1);
+    }
+
+    /*
+     * Decode BGR dengan ukuran sekitar 1/reduction (dibulatkan ke atas), orientasi EXIF
+     * sudah diterapkan. Mat hasil milik pemanggil.
+     */
+    public Mat decode(int reduction) {
+        long decodeStart = System.nanoTime();
+        Mat encoded = new Mat(1, data.capacity(), CV_8UC1, new BytePointer(data));
+        Mat image = imdecode(encoded, flagsFor(reduction));
+        encoded.release();
+        ScanMetrics.getInstance().record(Stage.DECODE, decodeStart);
+        if (image == null || image.empty()) {
+            throw new RuntimeException("Gagal membaca gambar: " + file);
+        }
+        return image;
+    }
+
+    private static int flagsFor(int reduction) {
+        switch (reduction) {
+            case 1:
+                return IMREAD_COLOR;
+            case 2:
+                return IMREAD_REDUCED_COLOR_2;
+            case 4:
+                return IMREAD_REDUCED_COLOR_4;
+            case 8:
+                return IMREAD_REDUCED_COLOR_8;
+            default:
+                throw new IllegalArgumentException("Faktor pengecilan tidak didukung: " + reduction);
+        }
+    }
+
+    /*
+     * {lebar, tinggi} dari header, {-1, -1} jika tidak dikenal.
+     */
+    private static int[] readSize(ByteBuffer header) {
+        try {
+            if (header.remaining() >= 24 && header.getLong(0) == 0x89504E470D0A1A0AL) {
+                // PNG: chunk pertama selalu IHDR
+                return new int[] { header.getInt(16), header.getInt(20) };
+            }
+            if (header.remaining() >= 4 && (header.getShort(0) & 0xFFFF) == 0xFFD8) {
+                return readJpegSize(header);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // File terpotong, biarkan imdecode yang melaporkan
+        }
+        return new int[] { -1, -1 };
+    }
+
+    /*
+     * Menelusuri segmen JPEG sampai marker SOF (baseline, progressive, dst).
+     */
+    private static int[] readJpegSize(ByteBuffer header) {
+        int position = 2;
+        while (position + 9 < header.limit()) {
+            if ((header.get(position) & 0xFF) != 0xFF) {
+                break;
+            }
+            int marker = header.get(position + 1) & 0xFF;
+            if (marker == 0xFF) {
+                // Byte pengisi
+                position++;
+                continue;
+            }
+            if (marker == 0xD8 || (marker >= 0xD0 && marker <= 0xD7) || marker == 0x01) {
+                // Marker tanpa panjang segmen
+                position += 2;
+                continue;
+            }
+            boolean startOfFrame = marker >= 0xC0 && marker <= 0xCF
+                    && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+            if (startOfFrame) {
+                int frameHeight = header.getShort(position + 5) & 0xFFFF;
+                int frameWidth = header.getShort(position + 7) & 0xFFFF;
+                return new int[] { frameWidth, frameHeight };
+            }
+            if (marker == 0xDA || marker == 0xD9) {
+                break;
+            }
+            position += 2 + (header.getShort(position + 2) & 0xFFFF);
+        }
+        return new int[] { -1, -1 };
+    }
+}
@@ -0,0 +1,47 @@
+package com.scanner.processor;
+
+import java.util.Arrays;
+
+/*
+ * Kumpulan titik intersection sebagai koordinat float berurutan [x0, y0, x1, y1, ...].
+ * Menggantikan List<Point> supaya tidak ada alokasi objek (dan memori native) per titik.
+ * Setiap titik punya bobot (jumlah votes kedua garis pembentuknya).
+ */
+public final class IntersectionBuffer {
+
+    private float[] coords;
+    private float[] weights;
+    private int size;
+
+    public IntersectionBuffer(int initialCapacity) {
+        this.coords = new float[Math.max(4, initialCapacity) * 2];
+        this.weights = new float[Math.max(4, initialCapacity)];
+    }
+
+    public void add(float x, float y, float weight) {
+        if (size == weights.length) {
+            coords = Arrays.copyOf(coords, coords.length * 2);
+            weights = Arrays.copyOf(weights, weights.length * 2);
+        }
+        coords[size * 2] = x;
+        coords[size * 2 + 1] = y;
+        weights[size] = weight;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float x(int i) {
+        return coords[i * 2];
+    }
+
+    public float y(int i) {
+        return coords[i * 2 + 1];
+    }
+
+    public float weight(int i) {
+        return weights[i];
+    }
+}
@@ -0,0 +1,95 @@
+package com.scanner.processor;
+
+import java.nio.ByteBuffer;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC4;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGR2RGB;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGRA2BGR;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGRA2RGB;
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_GRAY2RGB;
+import static org.bytedeco.opencv.global.opencv_imgproc.cvtColor;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+/*
+ * Konversi antara JavaFX Image dan OpenCV Mat.
+ * Hanya dipakai ketika gambar benar-benar perlu ditampilkan di GUI;
+ * pipeline pemrosesan sendiri bekerja langsung pada Mat.
+ *
+ * Pixel disalin langsung antara memori native Mat dan PixelReader/PixelWriter JavaFX,
+ * tanpa melewati BufferedImage (AWT) maupun Frame (JavaCV).
+ */
+public final class MatImageConverter {
+
+    private MatImageConverter() {
+    }
+
+    public static Mat toMat(Image image) {
+        if (image == null) {
+            System.err.println("Image null dalam toMat");
+            return null;
+        }
+
+        PixelReader reader = image.getPixelReader();
+        if (reader == null) {
+            System.err.println("Image belum selesai dimuat atau tidak bisa dibaca");
+            return null;
+        }
+
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+
+        /*
+         * PixelReader menulis langsung ke buffer native Mat dengan format BGRA
+         * (satu-satunya copy), lalu cvtColor membuang channel alpha
+         * sehingga hasilnya BGR 3-channel seperti yang diharapkan OpenCV.
+         */
+        Mat bgra = new Mat(height, width, CV_8UC4);
+        reader.getPixels(0, 0, width, height, PixelFormat.getByteBgraInstance(),
+                nativeBuffer(bgra), (int) bgra.step());
+
+        Mat bgr = new Mat();
+        cvtColor(bgra, bgr, COLOR_BGRA2BGR);
+        bgra.release();
+        return bgr;
+    }
+
+    public static Image toImage(Mat mat) {
+        if (mat == null || mat.empty()) {
+            System.err.println("Mat kosong atau null dalam toImage");
+            return null;
+        }
+
+        // OpenCV memakai urutan BGR, JavaFX memakai RGB
+        Mat rgb = new Mat();
+        switch (mat.channels()) {
+            case 3:
+                cvtColor(mat, rgb, COLOR_BGR2RGB);
+                break;
+            case 1:
+                cvtColor(mat, rgb, COLOR_GRAY2RGB);
+                break;
+            case 4:
+                cvtColor(mat, rgb, COLOR_BGRA2RGB);
+                break;
+            default:
+                System.err.println("Format Mat tidak didukung: " + mat.channels() + " channels");
+                return null;
+        }
+
+        WritableImage image = new WritableImage(rgb.cols(), rgb.rows());
+        image.getPixelWriter().setPixels(0, 0, rgb.cols(), rgb.rows(), PixelFormat.getByteRgbInstance(),
+                nativeBuffer(rgb), (int) rgb.step());
+        rgb.release();
+        return image;
+    }
+
+    private static ByteBuffer nativeBuffer(Mat mat) {
+        // View langsung ke memori Mat (tanpa copy); Mat hasil new/cvtColor selalu continuous
+        return mat.data().capacity((long) mat.rows() * mat.step()).asBuffer();
+    }
+}
@@ -0,0 +1,133 @@
+package com.scanner.processor;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.PointerScope;
+
+/*
+ * Pool buffer native untuk Mat sementara di pipeline.
+ *
+ * Buffer dikelompokkan berdasarkan ukuran byte yang dibulatkan ke atas (4 kelas per
+ * kelipatan dua, pemborosan paling banyak 25%), bukan berdasarkan ukuran/tipe Mat yang
+ * persis, sehingga halaman dengan ukuran hasil warp yang sedikit berbeda tetap memakai
+ * ulang buffer yang sama. Mat dibuat sebagai header di atas buffer tersebut; fungsi
+ * OpenCV yang menulis ke Mat dengan ukuran dan tipe yang cocok tidak mengalokasi lagi.
+ *
+ * Dipakai lewat ScanScope: buffer dipinjam selama satu scan dan dikembalikan saat
+ * scan selesai. Total buffer yang disimpan dibatasi oleh system property
+ * "scanner.matpool.maxMB" (default 256, 0 = pool mati); kelebihannya langsung dibebaskan.
+ */
+public final class MatPool {
+
+    private static final MatPool SHARED = new MatPool(
+            Long.getLong("scanner.matpool.maxMB", 256) * 1024 * 1024);
+
+    // Buffer lebih kecil dari ini dibulatkan ke ukuran ini
+    private static final long MIN_BYTES = 4096;
+
+    private final long maxPooledBytes;
+    private final ConcurrentHashMap<Long, ConcurrentLinkedDeque<BytePointer>> free = new ConcurrentHashMap<>();
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    public MatPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    public static MatPool shared() {
+        return SHARED;
+    }
+
+    /*
+     * Buffer dengan kapasitas minimal bytes. Buffer baru tidak pernah terikat ke
+     * PointerScope yang sedang aktif; pemanggil wajib mengembalikannya lewat give.
+     */
+    BytePointer take(long bytes) {
+        long size = bucketSize(bytes);
+        ConcurrentLinkedDeque<BytePointer> deque = free.get(size);
+        BytePointer buffer = deque != null ? deque.pollFirst() : null;
+        if (buffer != null) {
+            pooledBytes.addAndGet(-size);
+            hits.increment();
+            return buffer;
+        }
+
+        misses.increment();
+        allocatedBytes.add(size);
+        buffer = new BytePointer(size);
+        if (PointerScope.getInnerScope() != null) {
+            // Tahan satu referensi agar tidak ikut dibebaskan saat scope ditutup
+            buffer.retainReference();
+        }
+        return buffer;
+    }
+
+    void give(BytePointer buffer) {
+        long size = buffer.capacity();
+        if (pooledBytes.addAndGet(size) > maxPooledBytes) {
+            pooledBytes.addAndGet(-size);
+            buffer.deallocate();
+            return;
+        }
+        free.computeIfAbsent(size, key -> new ConcurrentLinkedDeque<>()).addFirst(buffer);
+    }
+
+    /*
+     * Membebaskan semua buffer yang sedang tidak dipinjam.
+     */
+    public void clear() {
+        for (ConcurrentLinkedDeque<BytePointer> deque : free.values()) {
+            BytePointer buffer;
+            while ((buffer = deque.pollFirst()) != null) {
+                pooledBytes.addAndGet(-buffer.capacity());
+                buffer.deallocate();
+            }
+        }
+    }
+
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /*
+     * Total byte yang pernah dialokasi pool. Pada batch yang stabil angka ini
+     * berhenti naik setelah beberapa halaman pertama.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    public String report() {
+        long total = getHits() + getMisses();
+        return String.format(Locale.ROOT,
+                "Mat pool: %d pinjam, %.1f%% dari pool, %.1f MB dialokasi, %.1f MB tersimpan%n",
+                total, total > 0 ? 100.0 * getHits() / total : 0.0,
+                getAllocatedBytes() / 1048576.0, getPooledBytes() / 1048576.0);
+    }
+
+    /*
+     * Dibulatkan ke atas dengan 3 bit teratas dipertahankan (1xx): 4 kelas ukuran
+     * per kelipatan dua, misalnya 4 MB, 5 MB, 6 MB, 7 MB, 8 MB, 10 MB, ...
+     */
+    static long bucketSize(long bytes) {
+        long size = Math.max(bytes, MIN_BYTES);
+        int shift = 63 - Long.numberOfLeadingZeros(size) - 2;
+        long step = 1L << shift;
+        return (size + step - 1) & -step;
+    }
+}
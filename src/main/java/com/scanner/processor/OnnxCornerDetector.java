@@ -0,0 +1,429 @@
+package com.scanner.processor;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_32F;
+import static org.bytedeco.opencv.global.opencv_core.CV_32FC1;
+import static org.bytedeco.opencv.global.opencv_core.CV_8U;
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+import static org.bytedeco.opencv.global.opencv_dnn.blobFromImages;
+import static org.bytedeco.opencv.global.opencv_imgproc.INTER_AREA;
+import static org.bytedeco.opencv.global.opencv_imgproc.THRESH_BINARY;
+import static org.bytedeco.opencv.global.opencv_imgproc.resize;
+import static org.bytedeco.opencv.global.opencv_imgproc.threshold;
+
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.MatVector;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+
+/*
+ * Strategi berbasis model ONNX (segmentasi dokumen atau keypoint sudut) untuk latar
+ * belakang ramai di mana kontur dan Hough Lines gagal. Biaya inferensi tetap,
+ * tidak bergantung pada isi gambar.
+ *
+ * Model yang didukung (input float NCHW RGB 0..1):
+ * - segmentasi: output [N, 1, H, W] atau [N, H, W] berisi probabilitas 0..1 pixel dokumen,
+ *   sudut diambil dari kontur quad terbesar pada mask
+ * - keypoint: output [N, 8] atau [N, 4, 2] berisi koordinat relatif (0..1) sudut
+ *   top-left, top-right, bottom-right, bottom-left
+ *
+ * Satu OrtSession dipakai bersama oleh semua thread (OrtSession.run thread-safe),
+ * sehingga bobot model hanya dimuat sekali. Session di-warm-up saat dibuat agar
+ * scan pertama tidak menanggung biaya inisialisasi.
+ *
+ * Jika maxBatch > 1, permintaan dari beberapa thread (batch mode) dikumpulkan oleh
+ * satu thread inferensi dan dijalankan dalam satu panggilan sampai maxBatch gambar,
+ * menunggu paling lama batchWait untuk permintaan berikutnya. Gambar permintaan menjadi milik
+ * thread inferensi (dilepas setelah infer), jadi scan yang dibatalkan tidak membebaskan Mat
+ * yang masih dibaca blobFromImages.
+ *
+ * close menunggu thread inferensi dan semua panggilan infer yang sedang berjalan sebelum
+ * menutup session; permintaan yang belum selesai dijawab null.
+ *
+ * Konfigurasi lewat system property (lihat fromSystemProperties):
+ * - scanner.onnx.model      : path file .onnx (wajib, tanpa ini strategi tidak aktif)
+ * - scanner.onnx.threads    : jumlah intra-op thread (default setengah jumlah core)
+ * - scanner.onnx.batch      : ukuran batch maksimal (default 1, tanpa batching)
+ * - scanner.onnx.batchWaitMs: waktu tunggu pengumpulan batch (default 5 ms)
+ * - scanner.onnx.inputSize  : ukuran input jika model memakai dimensi dinamis (default 256)
+ */
+public class OnnxCornerDetector implements CornerDetector, AutoCloseable {
+
+    private static final int DEFAULT_INPUT_SIZE = 256;
+    private static final float MASK_THRESHOLD = 0.5f;
+    // Batas tunggu hasil dari thread inferensi, supaya scan tidak menggantung selamanya
+    private static final long RESULT_TIMEOUT_SECONDS = 30;
+
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final String inputName;
+    private final int inputWidth;
+    private final int inputHeight;
+    private final int maxBatch;
+    private final long batchWaitNanos;
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread batchThread;
+    private volatile boolean closed;
+    // infer memegang read lock; close mengambil write lock sebelum session ditutup
+    private final ReadWriteLock sessionLock = new ReentrantReadWriteLock();
+
+    public OnnxCornerDetector(Path modelPath, int intraOpThreads, int maxBatch, long batchWaitMillis,
+            int defaultInputSize) throws OrtException {
+        this.environment = OrtEnvironment.getEnvironment();
+
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+        options.setIntraOpNumThreads(intraOpThreads);
+        options.setInterOpNumThreads(1);
+        options.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.SEQUENTIAL);
+        options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+        this.session = environment.createSession(modelPath.toString(), options);
+        options.close();
+
+        Map.Entry<String, NodeInfo> input = session.getInputInfo().entrySet().iterator().next();
+        this.inputName = input.getKey();
+        long[] shape = ((TensorInfo) input.getValue().getInfo()).getShape();
+        if (shape.length != 4 || (shape[1] > 0 && shape[1] != 3)) {
+            session.close();
+            throw new IllegalArgumentException("Model harus menerima input [N, 3, H, W], bukan "
+                    + Arrays.toString(shape));
+        }
+        this.inputHeight = shape[2] > 0 ? (int) shape[2] : defaultInputSize;
+        this.inputWidth = shape[3] > 0 ? (int) shape[3] : defaultInputSize;
+        // Model dengan batch tetap (misalnya 1) tidak bisa di-batch
+        this.maxBatch = shape[0] > 0 ? (int) Math.min(shape[0], maxBatch) : Math.max(1, maxBatch);
+        this.batchWaitNanos = TimeUnit.MILLISECONDS.toNanos(batchWaitMillis);
+
+        warmUp();
+
+        if (this.maxBatch > 1) {
+            batchThread = new Thread(this::runBatches, "onnx-batch");
+            batchThread.setDaemon(true);
+            batchThread.start();
+        } else {
+            batchThread = null;
+        }
+
+        System.out.println("Model ONNX dimuat: " + modelPath + " (input " + inputWidth + "x" + inputHeight
+                + ", " + intraOpThreads + " thread, batch " + this.maxBatch + ")");
+    }
+
+    /*
+     * Null jika scanner.onnx.model tidak diset atau model gagal dimuat.
+     */
+    public static OnnxCornerDetector fromSystemProperties() {
+        String model = System.getProperty("scanner.onnx.model");
+        if (model == null || model.trim().isEmpty()) {
+            return null;
+        }
+
+        Path modelPath = Paths.get(model.trim());
+        if (!Files.isRegularFile(modelPath)) {
+            System.err.println("Model ONNX tidak ditemukan: " + modelPath);
+            return null;
+        }
+
+        int threads = Integer.getInteger("scanner.onnx.threads",
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        int batch = Integer.getInteger("scanner.onnx.batch", 1);
+        long batchWait = Long.getLong("scanner.onnx.batchWaitMs", 5);
+        int inputSize = Integer.getInteger("scanner.onnx.inputSize", DEFAULT_INPUT_SIZE);
+        try {
+            return new OnnxCornerDetector(modelPath, threads, batch, batchWait, inputSize);
+        } catch (OrtException | RuntimeException e) {
+            System.err.println("Gagal memuat model ONNX " + modelPath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "onnx";
+    }
+
+    @Override
+    public CornerQuad detect(DetectionResult result, ProcessingProfile profile) {
+        if (closed) {
+            return null;
+        }
+
+        Mat image = result.getImage();
+        Mat resized = new Mat();
+        resize(image, resized, new Size(inputWidth, inputHeight), 0, 0, INTER_AREA);
+
+        CornerQuad normalized;
+        if (batchThread == null) {
+            try {
+                normalized = infer(Collections.singletonList(resized)).get(0);
+            } catch (OrtException e) {
+                System.err.println("Error dalam inferensi ONNX: " + e.getMessage());
+                return null;
+            } finally {
+                resized.release();
+            }
+        } else {
+            // resized sekarang milik thread inferensi
+            Request request = new Request(resized);
+            queue.add(request);
+            if (closed && queue.remove(request)) {
+                // Ditutup bersamaan: thread inferensi mungkin sudah selesai menguras antrean
+                request.finish(null);
+            }
+            try {
+                normalized = request.result.get(RESULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                System.err.println("Error dalam inferensi ONNX: " + e.getCause().getMessage());
+                return null;
+            } catch (TimeoutException e) {
+                System.err.println("Inferensi ONNX tidak selesai dalam " + RESULT_TIMEOUT_SECONDS + " detik");
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        if (normalized == null) {
+            return null;
+        }
+
+        // Koordinat relatif -> resolusi deteksi
+        float[] coords = new float[8];
+        for (int i = 0; i < 4; i++) {
+            coords[i * 2] = normalized.x(i) * image.cols();
+            coords[i * 2 + 1] = normalized.y(i) * image.rows();
+        }
+        return new CornerQuad(coords, normalized.getConfidence());
+    }
+
+    /*
+     * Satu panggilan inferensi untuk beberapa gambar yang sudah berukuran input model.
+     * Tensor NCHW dibuat oleh blobFromImages di memori native dan dibungkus langsung
+     * sebagai direct FloatBuffer, tanpa copy ke array Java.
+     * Hasil berupa quad dengan koordinat relatif (0..1), null jika tidak ditemukan atau
+     * detector sudah ditutup.
+     */
+    private List<CornerQuad> infer(List<Mat> images) throws OrtException {
+        sessionLock.readLock().lock();
+        try {
+            if (closed) {
+                return Collections.nCopies(images.size(), null);
+            }
+            return run(images);
+        } finally {
+            sessionLock.readLock().unlock();
+        }
+    }
+
+    private List<CornerQuad> run(List<Mat> images) throws OrtException {
+        MatVector batch = new MatVector(images.toArray(new Mat[0]));
+        Mat blob = blobFromImages(batch, 1.0 / 255, new Size(inputWidth, inputHeight),
+                new Scalar(0.0), true, false, CV_32F);
+        try {
+            long elements = (long) images.size() * 3 * inputHeight * inputWidth;
+            FloatBuffer buffer = new FloatPointer(blob.data()).capacity(elements).asBuffer();
+            long[] shape = { images.size(), 3, inputHeight, inputWidth };
+
+            try (OnnxTensor tensor = OnnxTensor.createTensor(environment, buffer, shape);
+                    OrtSession.Result output = session.run(Collections.singletonMap(inputName, tensor))) {
+                return parseOutput((OnnxTensor) output.get(0), images.size());
+            }
+        } finally {
+            blob.release();
+            batch.close();
+        }
+    }
+
+    private List<CornerQuad> parseOutput(OnnxTensor tensor, int batchSize) {
+        long[] shape = tensor.getInfo().getShape();
+        FloatBuffer values = tensor.getFloatBuffer();
+        int perImage = values.remaining() / batchSize;
+
+        List<CornerQuad> quads = new ArrayList<>(batchSize);
+        if (perImage == 8) {
+            // Keypoint: 4 sudut relatif
+            for (int b = 0; b < batchSize; b++) {
+                float[] coords = new float[8];
+                values.get(coords);
+                CornerQuad quad = new CornerQuad(coords, 0);
+                quads.add(quad.withConfidence(CornerQuad.score(quad.rectangularity(), 1.0, quad.area())));
+            }
+            return quads;
+        }
+
+        // Segmentasi: [N, 1, H, W] atau [N, H, W]
+        int maskHeight = (int) shape[shape.length - 2];
+        int maskWidth = (int) shape[shape.length - 1];
+        if ((long) maskHeight * maskWidth != perImage) {
+            throw new IllegalStateException("Output model tidak dikenali: " + Arrays.toString(shape));
+        }
+
+        float[] plane = new float[perImage];
+        for (int b = 0; b < batchSize; b++) {
+            values.get(plane);
+            quads.add(quadFromMask(plane, maskWidth, maskHeight));
+        }
+        return quads;
+    }
+
+    private static CornerQuad quadFromMask(float[] probabilities, int width, int height) {
+        Mat probability = new Mat(height, width, CV_32FC1);
+        Mat binary = new Mat();
+        Mat mask = new Mat();
+        MatVector contours = new MatVector();
+        try {
+            new FloatPointer(probability.data()).put(probabilities, 0, probabilities.length);
+            threshold(probability, binary, MASK_THRESHOLD, 255, THRESH_BINARY);
+            binary.convertTo(mask, CV_8U);
+
+            CornerQuad quad = ContourCornerDetector.findLargestQuad(mask, contours);
+            if (quad == null) {
+                return null;
+            }
+
+            float[] coords = new float[8];
+            for (int i = 0; i < 4; i++) {
+                coords[i * 2] = quad.x(i) / width;
+                coords[i * 2 + 1] = quad.y(i) / height;
+            }
+            return new CornerQuad(coords, quad.getConfidence());
+        } finally {
+            contours.close();
+            mask.release();
+            binary.release();
+            probability.release();
+        }
+    }
+
+    private void warmUp() throws OrtException {
+        long start = System.nanoTime();
+        Mat blank = new Mat(inputHeight, inputWidth, CV_8UC3, new Scalar(0.0));
+        try {
+            List<Mat> images = new ArrayList<>();
+            for (int i = 0; i < maxBatch; i++) {
+                images.add(blank);
+            }
+            infer(images);
+        } finally {
+            blank.release();
+        }
+        System.out.printf("Warm-up ONNX selesai dalam %d ms%n", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void runBatches() {
+        List<Request> pending = new ArrayList<>(maxBatch);
+        List<Mat> images = new ArrayList<>(maxBatch);
+        while (!closed) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                pending.add(first);
+
+                long deadline = System.nanoTime() + batchWaitNanos;
+                while (pending.size() < maxBatch) {
+                    Request next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    pending.add(next);
+                }
+
+                for (Request request : pending) {
+                    images.add(request.image);
+                }
+                try {
+                    List<CornerQuad> quads = infer(images);
+                    for (int i = 0; i < pending.size(); i++) {
+                        pending.get(i).result.complete(quads.get(i));
+                    }
+                } catch (OrtException | RuntimeException e) {
+                    for (Request request : pending) {
+                        request.result.completeExceptionally(e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                // Termasuk permintaan yang sudah diambil dari antrean saat thread di-interrupt
+                for (Request request : pending) {
+                    request.finish(null);
+                }
+                pending.clear();
+                images.clear();
+            }
+        }
+
+        for (Request request; (request = queue.poll()) != null;) {
+            request.finish(null);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (batchThread != null) {
+            batchThread.interrupt();
+            try {
+                batchThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Menunggu panggilan infer yang masih berjalan (tanpa batching atau dari thread inferensi)
+        sessionLock.writeLock().lock();
+        try {
+            session.close();
+        } catch (OrtException e) {
+            System.err.println("Gagal menutup session ONNX: " + e.getMessage());
+        } finally {
+            sessionLock.writeLock().unlock();
+        }
+    }
+
+    private static final class Request {
+        final Mat image;
+        final CompletableFuture<CornerQuad> result = new CompletableFuture<>();
+
+        Request(Mat image) {
+            this.image = image;
+        }
+
+        /*
+         * Menjawab permintaan (tidak berpengaruh jika sudah dijawab) dan melepas gambarnya.
+         */
+        void finish(CornerQuad quad) {
+            result.complete(quad);
+            image.release();
+        }
+    }
+}
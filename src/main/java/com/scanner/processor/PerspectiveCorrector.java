@@ -7,13 +7,19 @@ import static org.bytedeco.opencv.global.opencv_imgproc.INTER_LINEAR;
 import static org.bytedeco.opencv.global.opencv_imgproc.getPerspectiveTransform;
 import static org.bytedeco.opencv.global.opencv_imgproc.warpPerspective;
 import org.bytedeco.opencv.opencv_core.Mat;
-import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Point2f;
 import org.bytedeco.opencv.opencv_core.Scalar;
 import org.bytedeco.opencv.opencv_core.Size;
 
 public class PerspectiveCorrector {
+
+    // Batas kontras tepi relatif terhadap kalibrasi sebelum dianggap bergeser
+    private static final double RIG_TOLERANCE =
+            Double.parseDouble(System.getProperty("scanner.rig.tolerance", "0.5"));
+
+    private FixedRig rig;
     
-    public Mat correctPerspective(Mat input, Point[] corners) {
+    public Mat correctPerspective(Mat input, Point2f[] corners) {
         if (input == null || input.empty() || corners == null || corners.length != 4) {
             System.err.println("Input atau corners tidak valid");
             return null;
@@ -35,6 +41,86 @@ public class PerspectiveCorrector {
         int maxWidth = (int) Math.max(width1, width2);
         int maxHeight = (int) Math.max(height1, height2);
         
+        // Get transformation matrix dan apply
+        Mat transform = transform(corners, maxWidth, maxHeight, false);
+        // Dari MatPool bila dipanggil di dalam scan; ukuran halaman hampir sama antar scan
+        Mat result = ScanScope.acquire(maxHeight, maxWidth, input.type());
+        
+        warpPerspective(input, result, transform, new Size(maxWidth, maxHeight), 
+                       INTER_LINEAR, BORDER_CONSTANT, new Scalar(255, 255, 255, 0));
+        
+        // Cleanup
+        transform.release();
+        
+        return result;
+    }
+
+    /*
+     * Fixed-rig: mengunci sudut hasil kalibrasi untuk frame berukuran seperti frame ini.
+     * Tabel remap dihitung sekali di sini; kunci sebelumnya diganti.
+     */
+    public void lock(Mat frame, Point2f[] corners) {
+        int maxWidth = (int) Math.max(distance(corners[0], corners[1]), distance(corners[2], corners[3]));
+        int maxHeight = (int) Math.max(distance(corners[0], corners[3]), distance(corners[1], corners[2]));
+        Mat inverse = transform(corners, maxWidth, maxHeight, true);
+        FixedRig created = new FixedRig(frame, corners, inverse, maxWidth, maxHeight, RIG_TOLERANCE);
+        inverse.release();
+
+        FixedRig previous;
+        synchronized (this) {
+            previous = rig;
+            rig = created;
+        }
+        if (previous != null) {
+            previous.release();
+        }
+    }
+
+    public void unlock() {
+        FixedRig previous;
+        synchronized (this) {
+            previous = rig;
+            rig = null;
+        }
+        if (previous != null) {
+            previous.release();
+        }
+    }
+
+    public synchronized boolean isLocked() {
+        return rig != null;
+    }
+
+    /*
+     * Sudut yang sedang dikunci, atau null.
+     */
+    public synchronized CornerQuad getLockedCorners() {
+        return rig != null ? rig.getCorners() : null;
+    }
+
+    /*
+     * Koreksi dengan tabel remap yang dikunci. null jika belum dikunci, ukuran frame
+     * berbeda, atau baki bergeser (pemanggil harus menjalankan deteksi penuh).
+     */
+    public Mat correctLocked(Mat frame) {
+        FixedRig current;
+        synchronized (this) {
+            current = rig != null ? rig.retain() : null;
+        }
+        if (current == null) {
+            return null;
+        }
+        try {
+            return current.matches(frame) ? current.apply(frame) : null;
+        } finally {
+            current.release();
+        }
+    }
+
+    /*
+     * Homography dari sudut ke persegi panjang output (atau kebalikannya jika inverse).
+     */
+    private Mat transform(Point2f[] corners, int maxWidth, int maxHeight, boolean inverse) {
         // Setup source dan destination points
         Mat srcPoints = new Mat(4, 1, CV_32FC2);
         Mat dstPoints = new Mat(4, 1, CV_32FC2);
@@ -62,22 +148,15 @@ public class PerspectiveCorrector {
         dstPtr.put(6, 0).put(7, maxHeight);            // bottom-left
         dstPoints.ptr().put(dstPtr);
         
-        // Get transformation matrix dan apply
-        Mat transform = getPerspectiveTransform(srcPoints, dstPoints);
-        Mat result = new Mat();
-        
-        warpPerspective(input, result, transform, new Size(maxWidth, maxHeight), 
-                       INTER_LINEAR, BORDER_CONSTANT, new Scalar(255, 255, 255, 0));
-        
-        // Cleanup
+        Mat transform = inverse
+                ? getPerspectiveTransform(dstPoints, srcPoints)
+                : getPerspectiveTransform(srcPoints, dstPoints);
         srcPoints.release();
-        dstPoints.release(); 
-        transform.release();
-        
-        return result;
+        dstPoints.release();
+        return transform;
     }
     
-    private double distance(Point p1, Point p2) {
+    private double distance(Point2f p1, Point2f p2) {
         // Euclidean Distance
         return Math.sqrt(Math.pow(p1.x() - p2.x(), 2) + Math.pow(p1.y() - p2.y(), 2));
     }
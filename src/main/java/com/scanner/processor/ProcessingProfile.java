@@ -0,0 +1,113 @@
+package com.scanner.processor;
+
+import java.util.Locale;
+
+/*
+ * Profil kecepatan/kualitas untuk satu scan.
+ * Semua parameter pipeline yang sebelumnya di-hardcode (ukuran deteksi, denoiser,
+ * iterasi morphology, threshold Canny) diambil dari sini.
+ */
+public enum ProcessingProfile {
+
+    /*
+     * Deteksi pada 512 px dengan median blur, filter tanpa NL-means.
+     * Untuk preview dan batch besar di mana latensi lebih penting dari detail halus.
+     * Sample 12 MP: deteksi ~20-40 ms, Ditingkatkan ~180-270 ms.
+     */
+    FAST(512, Denoiser.MEDIAN, 10.0f, 4, 50, 150, 8, Denoiser.GAUSSIAN, Denoiser.MEDIAN),
+
+    /*
+     * Deteksi pada 800 px dengan bilateral filter, filter memakai bilateral.
+     * Default: tanpa biaya NL-means; error sudut per sample ada di tabel README.
+     * Sample 12 MP: deteksi ~30-65 ms, Ditingkatkan ~600 ms.
+     */
+    BALANCED(800, Denoiser.BILATERAL, 10.0f, 6, 50, 150, 10, Denoiser.BILATERAL, Denoiser.BILATERAL),
+
+    /*
+     * Pipeline asli: deteksi pada 1280 px dan NL-means di semua tahap.
+     * Sample 12 MP: deteksi ~1,3-2 s, Ditingkatkan ~21 s.
+     */
+    QUALITY(1280, Denoiser.NL_MEANS, 10.0f, 10, 50, 150, 12, Denoiser.NL_MEANS, Denoiser.NL_MEANS);
+
+    // Sisi terpanjang gambar yang dipakai untuk mencari garis/sudut
+    private final int detectionMaxSize;
+    private final Denoiser edgeDenoiser;
+    private final float edgeDenoiseStrength;
+    // Iterasi morphology close, sebanding dengan ukuran deteksi
+    private final int closeIterations;
+    private final double cannyLowThreshold;
+    private final double cannyHighThreshold;
+    // Jumlah maksimum garis Hough per orientasi (horizontal/vertikal) setelah NMS
+    private final int houghTopK;
+    private final Denoiser enhancedDenoiser;
+    private final Denoiser blackAndWhiteDenoiser;
+
+    ProcessingProfile(int detectionMaxSize, Denoiser edgeDenoiser, float edgeDenoiseStrength,
+            int closeIterations, double cannyLowThreshold, double cannyHighThreshold, int houghTopK,
+            Denoiser enhancedDenoiser, Denoiser blackAndWhiteDenoiser) {
+        this.detectionMaxSize = detectionMaxSize;
+        this.edgeDenoiser = edgeDenoiser;
+        this.edgeDenoiseStrength = edgeDenoiseStrength;
+        this.closeIterations = closeIterations;
+        this.cannyLowThreshold = cannyLowThreshold;
+        this.cannyHighThreshold = cannyHighThreshold;
+        this.houghTopK = houghTopK;
+        this.enhancedDenoiser = enhancedDenoiser;
+        this.blackAndWhiteDenoiser = blackAndWhiteDenoiser;
+    }
+
+    public int getDetectionMaxSize() {
+        return detectionMaxSize;
+    }
+
+    public Denoiser getEdgeDenoiser() {
+        return edgeDenoiser;
+    }
+
+    public float getEdgeDenoiseStrength() {
+        return edgeDenoiseStrength;
+    }
+
+    public int getCloseIterations() {
+        return closeIterations;
+    }
+
+    public double getCannyLowThreshold() {
+        return cannyLowThreshold;
+    }
+
+    public double getCannyHighThreshold() {
+        return cannyHighThreshold;
+    }
+
+    public int getHoughTopK() {
+        return houghTopK;
+    }
+
+    public Denoiser getEnhancedDenoiser() {
+        return enhancedDenoiser;
+    }
+
+    public Denoiser getBlackAndWhiteDenoiser() {
+        return blackAndWhiteDenoiser;
+    }
+
+    /*
+     * IllegalArgumentException (dengan daftar profil yang valid) jika nama tidak dikenal.
+     */
+    public static ProcessingProfile fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Profil tidak dikenal: " + name + " (pilihan: " + names() + ")");
+        }
+    }
+
+    private static String names() {
+        StringBuilder names = new StringBuilder();
+        for (ProcessingProfile profile : values()) {
+            names.append(names.length() > 0 ? ", " : "").append(profile.name().toLowerCase(Locale.ROOT));
+        }
+        return names.toString();
+    }
+}
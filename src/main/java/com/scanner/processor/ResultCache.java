@@ -0,0 +1,382 @@
+package com.scanner.processor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import com.scanner.metrics.ScanMetrics;
+
+/*
+ * Cache hasil scan berdasarkan isi sumber (content-addressed).
+ *
+ * Kunci sumber adalah SHA-256 dari byte file (atau pixel Mat untuk jalur GUI), jadi file
+ * yang sama tetap dikenali walaupun namanya atau lokasinya berbeda, dan file yang sengaja
+ * dibuat bertabrakan dengan input lain tidak bisa mendapat output milik input tersebut.
+ * Di bawah satu sumber disimpan dua jenis entri:
+ * - sudut per profil: dipakai ulang walaupun filter atau format output berbeda
+ *   (deteksi dilewati, tinggal warp + filter)
+ * - output ter-encode per profil + filter + format: file output bisa ditulis langsung
+ *   tanpa menjalankan pipeline sama sekali
+ *
+ * Selain opsi scan, kunci memuat digest konfigurasi yang ikut menentukan hasil: VERSION,
+ * system property deteksi (model ONNX, sudut manual, reusePrevious) dan filter (scanner.binarize.*),
+ * spesifikasi FilterChain dari preset (bisa diubah lewat scanner.filters), serta sudut yang
+ * dikunci pada mode fixed rig. Entri lama di disk tidak pernah cocok lagi dan habis lewat eviction.
+ *
+ * Dua tingkat penyimpanan, keduanya mati secara default (cache harus diaktifkan):
+ * - memori: LRU yang dibatasi total byte ("scanner.cache.memoryMB", default 0 = mati)
+ * - disk: folder "scanner.cache.dir" (default tidak ada), dibatasi "scanner.cache.diskMB"
+ *   (default 1024); file yang paling lama tidak dipakai dihapus lebih dulu.
+ *   Output disimpan apa adanya (misalnya ab/ab12...-balanced-asli.png), sudut sebagai teks.
+ *
+ * Hit dan miss dicatat di ScanMetrics.
+ */
+public final class ResultCache {
+
+    public static final ResultCache DISABLED = new ResultCache(0, null, 0);
+
+    // Naikkan jika perubahan kode mengubah sudut atau output untuk opsi yang sama
+    private static final int VERSION = 2;
+    private static final List<String> DETECTION_PROPERTIES = List.of(
+            "scanner.onnx.model", "scanner.onnx.inputSize", FallbackCornerDetector.MANUAL_PROPERTY,
+            "scanner.corners.reusePrevious");
+    private static final List<String> FILTER_PROPERTIES = List.of(
+            "scanner.binarize.method", "scanner.binarize.k", "scanner.binarize.window");
+    private static final String DETECTION_CONFIG = configuration("v" + VERSION, DETECTION_PROPERTIES);
+
+    // Perkiraan ukuran entri sudut di memori
+    private static final long CORNER_ENTRY_BYTES = 128;
+
+    private final long maxMemoryBytes;
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final ScanMetrics metrics = ScanMetrics.getInstance();
+
+    private final LinkedHashMap<String, Object> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes = -1;
+
+    public ResultCache(long maxMemoryBytes, Path directory, long maxDiskBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    public static ResultCache fromSystemProperties() {
+        String dir = System.getProperty("scanner.cache.dir");
+        return new ResultCache(
+                Long.getLong("scanner.cache.memoryMB", 0) * 1024 * 1024,
+                dir == null || dir.isBlank() ? null : Paths.get(dir),
+                Long.getLong("scanner.cache.diskMB", 1024) * 1024 * 1024);
+    }
+
+    public boolean isEnabled() {
+        return maxMemoryBytes > 0 || directory != null;
+    }
+
+    /*
+     * Kunci sumber: SHA-256 (hex) dari isi data.
+     */
+    public static String hash(byte[] data) {
+        return hash(ByteBuffer.wrap(data));
+    }
+
+    /*
+     * Untuk Mat kontinu (misalnya hasil MatImageConverter.toMat): hash langsung dari memori
+     * native beserta dimensi dan tipenya.
+     */
+    public static String hash(Mat mat) {
+        if (!mat.isContinuous()) {
+            Mat copy = mat.clone();
+            try {
+                return hash(copy);
+            } finally {
+                copy.release();
+            }
+        }
+        long bytes = mat.total() * mat.elemSize();
+        ByteBuffer data = mat.data().capacity(bytes).asBuffer();
+        return hash(data) + String.format(Locale.ROOT, "-%dx%dt%d", mat.cols(), mat.rows(), mat.type());
+    }
+
+    /*
+     * Untuk isi file yang di-map ke memori (ImageSource). Posisi buffer tidak diubah.
+     */
+    static String hash(ByteBuffer data) {
+        MessageDigest digest = sha256();
+        digest.update(data.duplicate());
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Wajib tersedia di setiap JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder text = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            text.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return text.toString();
+    }
+
+    /*
+     * 16 hex pertama SHA-256 dari base dan nilai system property yang disebut (urutan tetap).
+     */
+    private static String configuration(String base, List<String> properties) {
+        StringBuilder text = new StringBuilder(base).append('\n');
+        for (String property : properties) {
+            text.append(property).append('=').append(System.getProperty(property, "")).append('\n');
+        }
+        return hex(sha256().digest(text.toString().getBytes(StandardCharsets.UTF_8))).substring(0, 16);
+    }
+
+    public CornerQuad getCorners(String source, ProcessingProfile profile) {
+        String key = cornersKey(source, profile);
+        Object cached = getMemory(key);
+        if (cached == null) {
+            byte[] stored = readDisk(key);
+            if (stored != null) {
+                cached = parseCorners(stored);
+                if (cached != null) {
+                    putMemory(key, cached, CORNER_ENTRY_BYTES);
+                }
+            }
+        }
+        if (cached instanceof CornerQuad) {
+            metrics.cornerCacheHit();
+            return (CornerQuad) cached;
+        }
+        metrics.cornerCacheMiss();
+        return null;
+    }
+
+    public void putCorners(String source, ProcessingProfile profile, CornerQuad corners) {
+        String key = cornersKey(source, profile);
+        putMemory(key, corners, CORNER_ENTRY_BYTES);
+        writeDisk(key, formatCorners(corners));
+    }
+
+    /*
+     * Byte file output (PNG/JPEG/PDF) untuk sumber dan opsi ini, atau null.
+     * lockedCorners: sudut yang sedang dikunci PerspectiveCorrector (hanya dipakai jika
+     * options.isFixedRig(), null jika belum dikunci), karena hasil fixed rig bergantung padanya.
+     * Array yang dikembalikan dipakai bersama; jangan diubah.
+     */
+    public byte[] getOutput(String source, ScanOptions options, CornerQuad lockedCorners) {
+        String key = outputKey(source, options, lockedCorners);
+        Object cached = getMemory(key);
+        boolean fromDisk = false;
+        if (cached == null) {
+            byte[] stored = readDisk(key);
+            if (stored != null) {
+                putMemory(key, stored, stored.length);
+                cached = stored;
+                fromDisk = true;
+            }
+        }
+        if (cached instanceof byte[]) {
+            metrics.outputCacheHit(fromDisk);
+            return (byte[]) cached;
+        }
+        metrics.outputCacheMiss();
+        return null;
+    }
+
+    public void putOutput(String source, ScanOptions options, CornerQuad lockedCorners, byte[] encoded) {
+        String key = outputKey(source, options, lockedCorners);
+        putMemory(key, encoded, encoded.length);
+        writeDisk(key, encoded);
+    }
+
+    private static String cornersKey(String source, ProcessingProfile profile) {
+        return source + "-" + profile.name().toLowerCase(Locale.ROOT) + "-" + DETECTION_CONFIG + ".corners";
+    }
+
+    private static String outputKey(String source, ScanOptions options, CornerQuad lockedCorners) {
+        String filter = options.getFilterType().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_");
+        StringBuilder pipeline = new StringBuilder(DETECTION_CONFIG)
+                .append('\n').append(FilterPresets.get(options.getFilterType()).getSpecification());
+        if (options.isFixedRig()) {
+            pipeline.append("\nrig ").append(System.getProperty("scanner.rig.tolerance", "")).append(' ')
+                    .append(lockedCorners != null
+                            ? new String(formatCorners(lockedCorners), StandardCharsets.US_ASCII).trim()
+                            : "unlocked");
+        }
+        return source + "-" + options.getProfile().name().toLowerCase(Locale.ROOT) + "-" + filter
+                + "-" + configuration(pipeline.toString(), FILTER_PROPERTIES)
+                + "." + options.getOutputFormat().toLowerCase(Locale.ROOT);
+    }
+
+    // --- Tingkat memori ---
+
+    private synchronized Object getMemory(String key) {
+        if (maxMemoryBytes <= 0) {
+            return null;
+        }
+        return memory.get(key);
+    }
+
+    private synchronized void putMemory(String key, Object value, long bytes) {
+        if (bytes > maxMemoryBytes) {
+            return;
+        }
+        Object previous = memory.put(key, value);
+        memoryBytes += bytes - (previous == null ? 0 : weight(previous));
+
+        Iterator<Map.Entry<String, Object>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+            memoryBytes -= weight(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    private static long weight(Object value) {
+        return value instanceof byte[] ? ((byte[]) value).length : CORNER_ENTRY_BYTES;
+    }
+
+    // --- Tingkat disk ---
+
+    private Path diskPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private byte[] readDisk(String key) {
+        if (directory == null) {
+            return null;
+        }
+        Path path = diskPath(key);
+        try {
+            byte[] data = Files.readAllBytes(path);
+            // Waktu modifikasi dipakai sebagai urutan LRU saat eviction
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return data;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /*
+     * Ditulis ke file sementara lalu di-rename, jadi pembaca (atau proses lain yang memakai
+     * folder yang sama) tidak pernah melihat file setengah jadi.
+     */
+    private void writeDisk(String key, byte[] data) {
+        if (directory == null) {
+            return;
+        }
+        Path path = diskPath(key);
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), key, ".tmp");
+            Files.write(temp, data);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            addDiskBytes(data.length);
+        } catch (IOException e) {
+            System.err.println("Gagal menulis cache " + path + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void addDiskBytes(long bytes) throws IOException {
+        if (diskBytes < 0) {
+            // Dihitung sekali dari isi folder (termasuk hasil run sebelumnya)
+            diskBytes = 0;
+            for (Path file : listDisk()) {
+                diskBytes += Files.size(file);
+            }
+        } else {
+            diskBytes += bytes;
+        }
+        if (diskBytes > maxDiskBytes) {
+            evictDisk();
+        }
+    }
+
+    /*
+     * Menghapus file yang paling lama tidak dipakai sampai total <= 90% batas.
+     */
+    private void evictDisk() throws IOException {
+        List<Path> files = listDisk();
+        files.sort(Comparator.comparingLong(ResultCache::lastModified));
+        long target = maxDiskBytes / 10 * 9;
+        for (Path file : files) {
+            if (diskBytes <= target) {
+                break;
+            }
+            long size = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+                diskBytes -= size;
+            }
+        }
+    }
+
+    private List<Path> listDisk() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(shard,
+                        file -> !file.getFileName().toString().endsWith(".tmp"))) {
+                    entries.forEach(files::add);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static byte[] formatCorners(CornerQuad corners) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            text.append(corners.x(i)).append(' ').append(corners.y(i)).append(' ');
+        }
+        text.append(corners.getConfidence()).append('\n');
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static CornerQuad parseCorners(byte[] data) {
+        String[] parts = new String(data, StandardCharsets.US_ASCII).trim().split("\\s+");
+        if (parts.length != 9) {
+            return null;
+        }
+        try {
+            float[] coords = new float[8];
+            for (int i = 0; i < 8; i++) {
+                coords[i] = Float.parseFloat(parts[i]);
+            }
+            return new CornerQuad(coords, Double.parseDouble(parts[8]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
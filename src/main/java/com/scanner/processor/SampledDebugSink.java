@@ -0,0 +1,121 @@
+package com.scanner.processor;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.INTER_AREA;
+import static org.bytedeco.opencv.global.opencv_imgproc.resize;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+
+/*
+ * DebugSink yang hanya menyimpan setiap scan ke-N dan scan yang gagal.
+ *
+ * Untuk scan yang tidak terpilih, gambar ditahan di memori sampai endScan:
+ * jika scan gagal gambar tetap ditulis, jika berhasil gambar langsung di-release.
+ * Encoding tetap dikerjakan oleh thread background dari AsyncDebugSink.
+ *
+ * Karena setiap scan paralel di batch menahan gambarnya sendiri, salinan yang ditahan diperkecil
+ * (sisi terpanjang paling banyak scanner.debug.pendingMaxSide, default 1024) dan totalnya per scan
+ * dibatasi scanner.debug.pendingMB (default 16); jika lewat, gambar tertua dibuang lebih dulu
+ * sehingga langkah terakhir sebelum gagal tetap tersimpan.
+ */
+public class SampledDebugSink extends AsyncDebugSink {
+
+    private static final int PENDING_MAX_SIDE = Integer.getInteger("scanner.debug.pendingMaxSide", 1024);
+    private static final long PENDING_MAX_BYTES = Integer.getInteger("scanner.debug.pendingMB", 16) * 1024L * 1024L;
+
+    private final int sampleEvery;
+    private long scanNumber = 0;
+    private final ThreadLocal<ScanState> currentScan = new ThreadLocal<>();
+
+    public SampledDebugSink(String baseDir, int sampleEvery) {
+        super(baseDir);
+        this.sampleEvery = sampleEvery;
+    }
+
+    @Override
+    public void beginScan(String label) {
+        boolean sampled;
+        synchronized (this) {
+            sampled = scanNumber++ % sampleEvery == 0;
+        }
+        currentScan.set(new ScanState(nextScanDir(label), sampled));
+    }
+
+    @Override
+    public void write(String name, Mat mat) {
+        if (mat == null || mat.empty()) {
+            return;
+        }
+
+        ScanState state = currentScan.get();
+        if (state == null) {
+            // Di luar scan tidak ada keputusan sampling, perlakukan seperti async biasa
+            super.write(name, mat);
+            return;
+        }
+
+        Path path = resolve(state.dir, name);
+        if (state.sampled) {
+            enqueue(path, ScanScope.retain(mat.clone()));
+        } else {
+            state.add(path, ScanScope.retain(shrink(mat)));
+        }
+    }
+
+    private static Mat shrink(Mat mat) {
+        int longest = Math.max(mat.cols(), mat.rows());
+        if (longest <= PENDING_MAX_SIDE) {
+            return mat.clone();
+        }
+        double scale = (double) PENDING_MAX_SIDE / longest;
+        Mat small = new Mat();
+        resize(mat, small, new Size(0, 0), scale, scale, INTER_AREA);
+        return small;
+    }
+
+    @Override
+    public void endScan(boolean success) {
+        ScanState state = currentScan.get();
+        currentScan.remove();
+        if (state == null) {
+            return;
+        }
+
+        for (PendingImage image : state.pending) {
+            if (success) {
+                image.mat.release();
+            } else {
+                enqueue(image.path, image.mat);
+            }
+        }
+    }
+
+    private static final class ScanState {
+        final Path dir;
+        final boolean sampled;
+        final Deque<PendingImage> pending = new ArrayDeque<>();
+        long pendingBytes;
+
+        ScanState(Path dir, boolean sampled) {
+            this.dir = dir;
+            this.sampled = sampled;
+        }
+
+        void add(Path path, Mat mat) {
+            pending.add(new PendingImage(path, mat));
+            pendingBytes += bytes(mat);
+            while (pendingBytes > PENDING_MAX_BYTES && pending.size() > 1) {
+                Mat oldest = pending.poll().mat;
+                pendingBytes -= bytes(oldest);
+                oldest.release();
+            }
+        }
+
+        private static long bytes(Mat mat) {
+            return mat.total() * mat.elemSize();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.scanner.processor;
+
+/*
+ * Parameter pemrosesan untuk satu scan.
+ * Dipakai oleh ScannerProcessor.process / processFile agar pemanggil (GUI maupun batch)
+ * tidak perlu tahu urutan tahap di dalam pipeline.
+ */
+public class ScanOptions {
+
+    private String filterType = "Asli";
+    private String outputFormat = "PNG";
+    private ProcessingProfile profile = ProcessingProfile.BALANCED;
+    private boolean fixedRig;
+
+    public String getFilterType() {
+        return filterType;
+    }
+
+    public ScanOptions setFilterType(String filterType) {
+        this.filterType = filterType;
+        return this;
+    }
+
+    public String getOutputFormat() {
+        return outputFormat;
+    }
+
+    public ScanOptions setOutputFormat(String outputFormat) {
+        this.outputFormat = outputFormat;
+        return this;
+    }
+
+    public ProcessingProfile getProfile() {
+        return profile;
+    }
+
+    public ScanOptions setProfile(ProcessingProfile profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    public boolean isFixedRig() {
+        return fixedRig;
+    }
+
+    /*
+     * Kamera tetap: sudut dari deteksi pertama dikunci dan frame berikutnya langsung di-remap
+     * (lihat PerspectiveCorrector.lock). Deteksi penuh hanya dijalankan lagi jika baki bergeser.
+     */
+    public ScanOptions setFixedRig(boolean fixedRig) {
+        this.fixedRig = fixedRig;
+        return this;
+    }
+}
@@ -0,0 +1,125 @@
+package com.scanner.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.Pointer;
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/*
+ * Umur memori native untuk satu scan.
+ *
+ * - Semua objek JavaCPP yang dibuat di thread ini selama scan (Mat, Size, Point, Scalar,
+ *   MatVector, ...) terikat ke PointerScope dan dibebaskan saat scan selesai, tidak
+ *   menunggu GC. Objek yang harus hidup lebih lama (hasil scan, salinan untuk thread
+ *   lain) ditandai dengan keep/retain.
+ * - Mat sementara dari acquire memakai buffer dari MatPool yang dikembalikan ke pool
+ *   saat scan selesai, jadi batch yang stabil hampir tidak mengalokasi memori native baru.
+ *
+ * Di luar scan (misalnya EdgeDetector atau ImageFilter dipakai langsung) acquire
+ * mengembalikan Mat biasa milik pemanggil dan retain tidak melakukan apa pun.
+ */
+final class ScanScope implements AutoCloseable {
+
+    private static final ThreadLocal<ScanScope> CURRENT = new ThreadLocal<>();
+    private static final int[] DEPTH_BYTES = { 1, 1, 2, 2, 4, 4, 8, 2 };
+
+    private final ScanScope parent;
+    private final MatPool pool;
+    private final PointerScope pointerScope;
+    private final List<BytePointer> leases = new ArrayList<>();
+
+    private ScanScope(ScanScope parent, MatPool pool) {
+        this.parent = parent;
+        this.pool = pool;
+        this.pointerScope = new PointerScope();
+    }
+
+    static ScanScope open() {
+        return open(MatPool.shared());
+    }
+
+    static ScanScope open(MatPool pool) {
+        ScanScope scope = new ScanScope(CURRENT.get(), pool);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /*
+     * Mat rows x cols dengan tipe type. Isinya tidak diinisialisasi.
+     * Boleh di-release lebih awal; buffernya tetap baru kembali ke pool saat scan selesai.
+     */
+    static Mat acquire(int rows, int cols, int type) {
+        ScanScope scope = CURRENT.get();
+        if (scope == null) {
+            return new Mat(rows, cols, type);
+        }
+        BytePointer buffer = scope.pool.take((long) rows * cols * elementSize(type));
+        scope.leases.add(buffer);
+        return new Mat(rows, cols, type, buffer);
+    }
+
+    /*
+     * Byte per pixel untuk tipe Mat: depth di 3 bit bawah, jumlah channel - 1 di atasnya.
+     * Urutan depth: 8U, 8S, 16U, 16S, 32S, 32F, 64F, 16F.
+     */
+    static int elementSize(int type) {
+        int depthBytes = DEPTH_BYTES[type & 7];
+        int channels = (type >> 3) + 1;
+        return depthBytes * channels;
+    }
+
+    static Mat acquireLike(Mat mat) {
+        return acquire(mat.rows(), mat.cols(), mat.type());
+    }
+
+    /*
+     * Objek yang harus tetap hidup setelah scan selesai (misalnya salinan yang diserahkan
+     * ke thread lain). Pemilik barunya tetap yang me-release.
+     */
+    static <P extends Pointer> P retain(P pointer) {
+        if (PointerScope.getInnerScope() != null) {
+            pointer.retainReference();
+        }
+        return pointer;
+    }
+
+    /*
+     * Hasil scan yang dikembalikan ke pemanggil. Mat yang datanya berada di buffer pool
+     * disalin dulu, karena buffer itu akan dipakai scan berikutnya.
+     */
+    Mat keep(Mat mat) {
+        if (isLeased(mat)) {
+            mat = mat.clone();
+        }
+        mat.retainReference();
+        return mat;
+    }
+
+    private boolean isLeased(Mat mat) {
+        long address = mat.data().address();
+        for (BytePointer buffer : leases) {
+            if (address >= buffer.address() && address < buffer.address() + buffer.capacity()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // Header Mat dibebaskan dulu; header di atas buffer pool tidak memiliki datanya
+        pointerScope.close();
+        for (BytePointer buffer : leases) {
+            pool.give(buffer);
+        }
+        leases.clear();
+        if (parent != null) {
+            CURRENT.set(parent);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
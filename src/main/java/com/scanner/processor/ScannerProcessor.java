@@ -1,276 +1,544 @@
 package com.scanner.processor;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
-
-import org.bytedeco.javacv.Frame;
-import org.bytedeco.javacv.Java2DFrameConverter;
-import org.bytedeco.javacv.OpenCVFrameConverter;
-import static org.bytedeco.opencv.global.opencv_imgcodecs.imwrite;
-import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGR2RGB;
-import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGRA2BGR;
-import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGRA2RGB;
-import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_GRAY2BGR;
-import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_GRAY2RGB;
-import static org.bytedeco.opencv.global.opencv_imgproc.cvtColor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_COLOR;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
 import org.bytedeco.opencv.opencv_core.Mat;
-import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Point2f;
 
 import com.scanner.export.ExportHandler;
+import com.scanner.metrics.ScanMetrics;
+import com.scanner.metrics.Stage;
 
-import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
 
-public class ScannerProcessor {
+/*
+ * close() wajib dipanggil saat aplikasi selesai: strategi deteksi sudut bisa memegang session
+ * ONNX Runtime dan thread batch.
+ */
+public class ScannerProcessor implements AutoCloseable {
+
+    // Sisi terpanjang proxy untuk processPreview
+    private static final int PREVIEW_MAX_SIDE = Integer.getInteger("scanner.preview.maxSide", 1024);
+    // Mode kamera tetap untuk jalur GUI (batch memakai --fixed-rig)
+    private static final boolean FIXED_RIG = Boolean.getBoolean("scanner.fixedRig");
 
     private final EdgeDetector edgeDetector;
     private final PerspectiveCorrector perspectiveCorrector;
     private final ImageFilter imageFilter;
     private final ExportHandler exportHandler;
+    private final DebugSink debugSink;
+    private final ScanMetrics metrics = ScanMetrics.getInstance();
+    private final CorrectedPageCache pageCache = new CorrectedPageCache();
+    private final ResultCache resultCache;
 
     public ScannerProcessor() {
-        this.edgeDetector = new EdgeDetector();
+        this(DebugSink.fromSystemProperties());
+    }
+
+    public ScannerProcessor(DebugSink debugSink) {
+        this(debugSink, ResultCache.fromSystemProperties());
+    }
+
+    public ScannerProcessor(DebugSink debugSink, ResultCache resultCache) {
+        this.debugSink = debugSink;
+        this.resultCache = resultCache;
+        this.edgeDetector = new EdgeDetector(debugSink);
         this.perspectiveCorrector = new PerspectiveCorrector();
-        this.imageFilter = new ImageFilter();
+        this.imageFilter = new ImageFilter(debugSink);
         this.exportHandler = new ExportHandler();
     }
 
+    /*
+     * Jalur GUI. Hasil deteksi + warp untuk Image yang sama disimpan di CorrectedPageCache,
+     * jadi mengganti filter hanya menjalankan ulang ImageFilter pada halaman yang sudah dikoreksi.
+     * Gambar yang pernah di-scan sebelumnya (pixel sama) memakai sudut dari ResultCache.
+     */
     public Image processImage(Image inputImage, String filterType) {
-        System.out.println("Processing image dengan filter: " + filterType);
-
-        // Convert JavaFX Image to OpenCV Mat
-        Mat originalMat = imageToMat(inputImage);
-        if (originalMat == null || originalMat.empty()) {
-            throw new RuntimeException("Gagal mengkonversi input image ke Mat");
-        }
-
-        imwrite("debug/scanner/01_original_input.png", originalMat);
+        ScanOptions options = new ScanOptions().setFilterType(filterType).setFixedRig(FIXED_RIG);
+        return processPage(inputImage, options, () -> {
+            // Convert JavaFX Image to OpenCV Mat
+            Mat originalMat = MatImageConverter.toMat(inputImage);
+            if (originalMat == null || originalMat.empty()) {
+                throw new RuntimeException("Gagal mengkonversi input image ke Mat");
+            }
+            try {
+                String source = resultCache.isEnabled() ? ResultCache.hash(originalMat) : null;
+                return correct(originalMat, options, source);
+            } finally {
+                originalMat.release();
+            }
+        });
+    }
 
-        // Debug: Edge detection
-        Mat debugEdgeDetection = originalMat.clone();
-        Mat edges = edgeDetector.detectEdges(debugEdgeDetection);
-        imwrite("debug/scanner/02_edges.png", edges);
-        edges.release();
-        debugEdgeDetection.release();
+    /*
+     * Jalur GUI untuk file yang dibuka lewat ImageSource. Deteksi memakai decode yang
+     * diperkecil (IMREAD_REDUCED_*) sesuai ukuran deteksi profil; decode resolusi penuh baru
+     * dijalankan setelah sudut ditemukan (untuk cornerSubPix dan warp). Sudut di ResultCache
+     * memakai kunci yang sama dengan jalur batch (hash isi file).
+     */
+    public Image processImage(ImageSource source, String filterType) {
+        ScanOptions options = new ScanOptions().setFilterType(filterType).setFixedRig(FIXED_RIG);
+        return processPage(source, options, () -> {
+            String key = resultCache.isEnabled() ? source.hash() : null;
+            int reduction = source.reductionFor(options.getProfile().getDetectionMaxSize());
+            try (LazyDecode full = new LazyDecode(source, 1);
+                    LazyDecode reduced = new LazyDecode(source, reduction)) {
+                return correct(reduction > 1 ? reduced : full, 1.0 / reduction, full, options, key);
+            }
+        });
+    }
 
-        // Detect 4 corner points
-        Point[] corners = edgeDetector.detectDocumentCorners(originalMat);
-        // Perspective correction
-        Mat corrected = perspectiveCorrector.correctPerspective(originalMat, corners);
-        if (corrected == null) {
-            originalMat.release();
-            throw new RuntimeException("Deteksi tepi dokumen gagal. Pastikan gambar jelas dan dokumen terlihat penuh.");
+    /*
+     * Gambar untuk ditampilkan di GUI: decode yang diperkecil ke sekitar ukuran preview,
+     * dengan orientasi EXIF sudah diterapkan.
+     */
+    public Image loadImage(ImageSource source) {
+        Mat display = source.decode(source.reductionFor(PREVIEW_MAX_SIDE));
+        try {
+            Image image = MatImageConverter.toImage(display);
+            if (image == null) {
+                throw new RuntimeException("Gagal mengkonversi gambar: " + source.getFile());
+            }
+            return image;
+        } finally {
+            display.release();
         }
-        imwrite("debug/scanner/03_corrected.png", corrected);
+    }
 
-        // Apply filter
-        Mat filtered = imageFilter.applyFilter(corrected, filterType);
-        if (filtered == null || filtered.empty()) {
-            originalMat.release();
-            corrected.release();
-            throw new RuntimeException("Filter gagal diterapkan");
+    /*
+     * Halaman hasil koreksi diambil dari CorrectedPageCache (kunci: objek sumber + profil)
+     * atau dibuat oleh correct lalu disimpan, kemudian difilter.
+     */
+    private Image processPage(Object inputSource, ScanOptions options,
+            Supplier<CorrectedPageCache.Page> correct) {
+        Mat filtered;
+        CorrectedPageCache.Page cached = pageCache.get(inputSource, options.getProfile());
+        if (cached != null) {
+            System.out.println("Memakai hasil koreksi perspektif dari cache");
+            try {
+                filtered = scan(null, options, scope -> filter(cached.getCorrected(), options));
+            } finally {
+                cached.release();
+            }
+        } else {
+            // Sumber baru (atau profil lain): halaman lama tidak dipakai lagi
+            pageCache.invalidate();
+
+            filtered = scan(null, options, scope -> {
+                CorrectedPageCache.Page corrected = correct.get();
+                checkCancelled();
+                // Salinan di luar MatPool yang tetap hidup setelah scan selesai
+                CorrectedPageCache.Page page = pageCache.put(inputSource, options.getProfile(),
+                        scope.keep(corrected.getCorrected()), corrected.getCorners());
+                corrected.release();
+                try {
+                    return filter(page.getCorrected(), options);
+                } finally {
+                    page.release();
+                }
+            });
         }
-        imwrite("debug/scanner/04_filtered.png", filtered);
 
         // Convert back to JavaFX Image
-        Image resultImage = matToImage(filtered);
+        Image resultImage = MatImageConverter.toImage(filtered);
+        filtered.release();
         if (resultImage == null) {
-            originalMat.release();
-            corrected.release();
-            filtered.release();
             throw new RuntimeException("Gagal mengkonversi hasil ke Image");
         }
 
-        // Cleanup memory
-        originalMat.release();
-        corrected.release();
-        filtered.release();
+        return resultImage;
+    }
 
-        System.out.println("Image processing completed successfully");
+    /*
+     * Preview cepat untuk GUI: pipeline lengkap (deteksi, warp, filter) pada salinan gambar
+     * yang diperkecil ke ukuran layar ("scanner.preview.maxSide", default 1024) dengan profil
+     * FAST. Salinan itu diambil dari decode yang diperkecil, atau dari halaman hasil koreksi
+     * di CorrectedPageCache jika sudah ada (hanya filter yang berganti).
+     * Hasilnya hanya untuk ditampilkan sementara processImage menghitung resolusi penuh;
+     * jangan diekspor. Tidak mengisi cache, dan tidak dihitung sebagai scan di metrik (counter
+     * maupun latensi tahap); hanya dicatat sebagai Stage.PREVIEW.
+     */
+    public Image processPreview(ImageSource source, String filterType) {
+        long start = System.nanoTime();
+        Image resultImage = metrics.untracked(() -> preview(source, filterType));
+        metrics.record(Stage.PREVIEW, start);
         return resultImage;
     }
 
-    public void saveImage(Image image, File file, String format) {
-        exportHandler.saveImage(image, file, format);
+    private Image preview(ImageSource source, String filterType) {
+        ScanOptions options = new ScanOptions().setFilterType(filterType).setProfile(ProcessingProfile.FAST);
+
+        Mat filtered;
+        CorrectedPageCache.Page cached = pageCache.get(source, new ScanOptions().getProfile());
+        if (cached != null) {
+            Mat proxy = downscaleForPreview(cached.getCorrected());
+            cached.release();
+            try {
+                filtered = scan("preview", options, scope -> filter(proxy, options));
+            } finally {
+                proxy.release();
+            }
+        } else {
+            Mat decoded = source.decode(source.reductionFor(PREVIEW_MAX_SIDE));
+            Mat proxy = downscaleForPreview(decoded);
+            decoded.release();
+            try {
+                filtered = process(proxy, options, "preview", null);
+            } finally {
+                proxy.release();
+            }
+        }
+
+        Image resultImage = MatImageConverter.toImage(filtered);
+        filtered.release();
+        if (resultImage == null) {
+            throw new RuntimeException("Gagal mengkonversi hasil ke Image");
+        }
+        return resultImage;
     }
 
-    private Mat imageToMat(Image image) {
-        try {
-            /*
-             * JavaFX Image -> BufferedImage (Java AWT) -> Frame (JavaCV) -> Mat (OpenCV) ->
-             * Normalisasi ke BGR 3-channel
-             */
-            /*
-             * BufferedImage adalah kelas Java yang merepresentasikan gambar
-             * dalam memori bagian dari Java AWT (Abstract Window Toolkit)
-             * yang menyediakan cara untuk memanipulasi gambar (pixel) di java.
-             * 
-             * parameter SwingFXUtils.fromFXImage(image, null) adalah:
-             * - image: gambar yang akan dikonversi
-             * - null: BufferedImage yang sudah ada (opsional). Setting null akan membuat
-             * BufferedImage baru.
-             */
-            BufferedImage bufferedImage = SwingFXUtils.fromFXImage(image, null);
-            if (bufferedImage == null) {
-                System.err.println("Gagal mengkonversi Image ke BufferedImage");
-                return null;
+    private static Mat downscaleForPreview(Mat image) {
+        double scale = Math.min(1.0, (double) PREVIEW_MAX_SIDE / Math.max(image.cols(), image.rows()));
+        return EdgeDetector.downscale(image, scale);
+    }
+
+    /*
+     * Pipeline utama yang bekerja langsung pada Mat: deteksi sudut -> koreksi perspektif -> filter.
+     * Input tidak diubah dan tetap menjadi milik pemanggil; Mat hasil harus di-release oleh pemanggil.
+     * Mat sementara di dalam scan memakai MatPool (lihat ScanScope).
+     */
+    public Mat process(Mat input, ScanOptions options) {
+        return process(input, options, null, null);
+    }
+
+    /*
+     * source: kunci ResultCache untuk input ini, atau null jika tidak memakai cache.
+     */
+    private Mat process(Mat input, ScanOptions options, String label, String source) {
+        if (input == null || input.empty()) {
+            throw new RuntimeException("Input image kosong");
+        }
+
+        return scan(label, options, scope -> {
+            CorrectedPageCache.Page corrected = correct(input, options, source);
+            try {
+                checkCancelled();
+                return filter(corrected.getCorrected(), options);
+            } finally {
+                corrected.release();
             }
+        });
+    }
+
+    /*
+     * Seperti process, tetapi sudut (resolusi penuh) sudah diketahui, misalnya hasil tracking
+     * di VideoScanner: deteksi dilewati, langsung warp + filter.
+     */
+    public Mat process(Mat input, CornerQuad corners, ScanOptions options, String label) {
+        if (input == null || input.empty()) {
+            throw new RuntimeException("Input image kosong");
+        }
 
-            /*
-             * bgrImage akan menyimpan hasil konversi.
-             * Selanjutnya cek apakah format BufferedImage adalah 3 byte BGR
-             * (24-bit dengan urutan warna Blue-Green-Red). Ini adalah format yang
-             * dibutuhkan OpenCV
-             * 
-             * Jika tidak, maka buat BufferedImage baru dengan format 3 byte BGR.
-             * Graphics2D adalah kelas untuk menggambar/memanipulasi gambar
-             * 
-             * Jadi, buat BufferedImage baru dengan format 3 byte BGR,
-             * lalu menggunakan Graphics2D untuk menggambar (copy) bufferedImage ke
-             * bgrImage.
-             * 
-             * Jika gambar sudah dalam format BGR, gunakan langsung bufferedImage.
-             */
-            BufferedImage bgrImage;
-            if (bufferedImage.getType() != BufferedImage.TYPE_3BYTE_BGR) {
-                bgrImage = new BufferedImage(bufferedImage.getWidth(), bufferedImage.getHeight(),
-                        BufferedImage.TYPE_3BYTE_BGR);
-                java.awt.Graphics2D g2d = bgrImage.createGraphics();
-                g2d.drawImage(bufferedImage, 0, 0, null);
-                g2d.dispose();
-            } else {
-                bgrImage = bufferedImage;
+        return scan(label, options, scope -> {
+            debugSink.write("scanner/01_original_input", input);
+            CorrectedPageCache.Page corrected = warp(input, corners);
+            try {
+                checkCancelled();
+                return filter(corrected.getCorrected(), options);
+            } finally {
+                corrected.release();
             }
+        });
+    }
+
+    /*
+     * Kerangka satu scan: metrik, folder debug dan ScanScope.
+     * Memori native sementara milik scan dibebaskan/dikembalikan ke pool di akhir scan;
+     * hanya Mat hasil yang tetap hidup.
+     *
+     * Pembatalan bersifat kooperatif: jika thread scan di-interrupt (misalnya Task.cancel(true)
+     * karena ada scan yang lebih baru), scan berhenti di batas tahap berikutnya dengan
+     * CancellationException. Scan yang dibatalkan tidak dianggap gagal oleh debug sink.
+     */
+    private Mat scan(String label, ScanOptions options, Function<ScanScope, Mat> stages) {
+        System.out.println("Processing image dengan filter: " + options.getFilterType()
+                + ", profil: " + options.getProfile());
+
+        boolean success = false;
+        metrics.scanStarted();
+        debugSink.beginScan(label);
+        try (ScanScope scope = ScanScope.open()) {
+            checkCancelled();
+            Mat filtered = stages.apply(scope);
+            checkCancelled();
+
+            System.out.println("Image processing completed successfully");
+            metrics.scanSucceeded();
+            success = true;
+            return scope.keep(filtered);
+        } catch (CancellationException e) {
+            System.out.println("Scan dibatalkan");
+            metrics.scanCancelled();
+            // Bukan kegagalan, gambar debug tidak perlu disimpan
+            success = true;
+            throw e;
+        } finally {
+            debugSink.endScan(success);
+        }
+    }
+
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Scan dibatalkan");
+        }
+    }
 
-            /*
-             * Java2DFrameConverter adalah kelas dari JavaCV yang digunakan untuk
-             * mengonversi antara format Java AWT dan JavaCV.
-             * Menggunakan Java2DFrameConverter untuk mengonversi BufferedImage ke Frame.
-             * Frame adalah format yang digunakan JavaCV untuk menghubungkan antara Java AWT
-             * dan OpenCV.
-             * Frame menjadi jembatan antara Java dan OpenCV yang mendukung operasi
-             * video/image processing.
-             */
-            Java2DFrameConverter java2DConverter = new Java2DFrameConverter();
-            Frame frame = java2DConverter.convert(bgrImage);
-            if (frame == null) {
-                System.err.println("Gagal mengkonversi BufferedImage ke Frame");
-                return null;
+    /*
+     * Deteksi sudut lalu koreksi perspektif. Halaman yang dikembalikan wajib di-release.
+     * Jika source sudah pernah dideteksi dengan profil yang sama, sudut diambil dari
+     * ResultCache dan deteksi dilewati.
+     */
+    private CorrectedPageCache.Page correct(Mat input, ScanOptions options, String source) {
+        return correct(() -> input, 1.0, () -> input, options, source);
+    }
+
+    /*
+     * detectionInput berukuran inputScale kali resolusi penuh. Kedua gambar baru diminta
+     * saat dibutuhkan, jadi resolusi penuh tidak di-decode jika deteksi gagal.
+     */
+    private CorrectedPageCache.Page correct(Supplier<Mat> detectionInput, double inputScale,
+            Supplier<Mat> fullResolution, ScanOptions options, String source) {
+        if (debugSink.isEnabled()) {
+            debugSink.write("scanner/01_original_input", fullResolution.get());
+        }
+
+        if (options.isFixedRig()) {
+            CorrectedPageCache.Page locked = correctLocked(fullResolution.get());
+            if (locked != null) {
+                return locked;
             }
+        }
 
-            /*
-             * OpenCVFrameConverter.ToMat adalah kelas dari JavaCV yang digunakan untuk
-             * mengonversi antara format JavaCV dan OpenCV.
-             * Menggunakan OpenCVFrameConverter.ToMat untuk mengonversi Frame ke Mat.
-             * 
-             * Mat adalah format native OpenCV.
-             * Mat digunakan OpenCV untuk menyimpan gambar.
-             * Mat memungkinkan operasi image processing OpenCV.
-             */
-            OpenCVFrameConverter.ToMat matConverter = new OpenCVFrameConverter.ToMat();
-            Mat mat = matConverter.convert(frame);
-
-            /*
-             * Validasi apakah Mat valid
-             * Jika Mat valid, maka cek apakah Mat memiliki 4 channel (BGRA) (Blue, Green,
-             * Red, Alpha (transparansi))
-             * Jika ya, maka konversi Mat ke BGR
-             * Jika tidak, maka cek apakah Mat memiliki 1 channel (GRAY) (grayscale)
-             * Jika ya, maka konversi Mat ke BGR
-             * Jika tidak, maka return Mat
-             */
-            if (mat != null && !mat.empty()) {
-                // Ensure BGR 3-channel format (OpenCV default)
-                if (mat.channels() == 4) {
-                    Mat bgr = new Mat();
-                    cvtColor(mat, bgr, COLOR_BGRA2BGR);
-                    mat.release();
-                    return bgr;
-                } else if (mat.channels() == 1) {
-                    Mat bgr = new Mat();
-                    cvtColor(mat, bgr, COLOR_GRAY2BGR);
-                    mat.release();
-                    return bgr;
-                }
-                return mat;
+        CornerQuad corners = source != null ? resultCache.getCorners(source, options.getProfile()) : null;
+        if (corners != null) {
+            System.out.println("Memakai sudut dari cache");
+        } else {
+            corners = detectCorners(detectionInput.get(), inputScale, fullResolution, options);
+            if (corners != null && source != null) {
+                resultCache.putCorners(source, options.getProfile(), corners);
             }
+        }
+        checkCancelled();
+        if (corners != null && options.isFixedRig()) {
+            // Kalibrasi (ulang): frame berikutnya memakai tabel remap dari sudut ini
+            perspectiveCorrector.lock(fullResolution.get(), corners.toPoints());
+        }
 
-            return null;
-        } catch (Exception e) {
-            System.err.println("Error dalam imageToMat: " + e.getMessage());
-            e.printStackTrace();
-            return null;
+        return warp(corners != null ? fullResolution.get() : null, corners);
+    }
+
+    /*
+     * Koreksi perspektif dengan sudut yang sudah diketahui (corners null = deteksi gagal).
+     */
+    private CorrectedPageCache.Page warp(Mat input, CornerQuad corners) {
+        Mat corrected = null;
+        if (corners != null) {
+            long warpStart = System.nanoTime();
+            corrected = perspectiveCorrector.correctPerspective(input, corners.toPoints());
+            metrics.record(Stage.WARP, warpStart);
+        }
+        if (corrected == null) {
+            metrics.detectionFailed();
+            throw new RuntimeException("Deteksi tepi dokumen gagal. Pastikan gambar jelas dan dokumen terlihat penuh.");
         }
+        debugSink.write("scanner/03_corrected", corrected);
+        return new CorrectedPageCache.Page(corrected, corners);
     }
 
-    private Image matToImage(Mat mat) {
-        if (mat == null || mat.empty()) {
-            System.err.println("Mat kosong atau null dalam matToImage");
+    /*
+     * Remap dengan sudut yang dikunci, atau null jika belum dikunci atau baki bergeser.
+     */
+    private CorrectedPageCache.Page correctLocked(Mat frame) {
+        long warpStart = System.nanoTime();
+        Mat corrected = perspectiveCorrector.correctLocked(frame);
+        CornerQuad corners = perspectiveCorrector.getLockedCorners();
+        if (corrected == null || corners == null) {
+            System.out.println("Fixed rig: sudut belum dikunci atau baki bergeser, deteksi penuh");
+            metrics.fixedRigFallback();
             return null;
         }
+        metrics.record(Stage.WARP, warpStart);
+        metrics.fixedRigHit();
+        debugSink.write("scanner/03_corrected", corrected);
+        return new CorrectedPageCache.Page(corrected, corners);
+    }
 
-        try {
-            /*
-             * kebalikan dari imageToMat
-             * Mat -> Frame -> BufferedImage -> JavaFX Image
-             */
-            Mat displayMat = mat;
-
-            // Convert BGR to RGB for correct display (OpenCV uses BGR, JavaFX uses RGB)
-            if (mat.channels() == 3) {
-                displayMat = new Mat();
-                cvtColor(mat, displayMat, COLOR_BGR2RGB);
-            } else if (mat.channels() == 1) {
-                displayMat = new Mat();
-                cvtColor(mat, displayMat, COLOR_GRAY2RGB);
-            } else if (mat.channels() == 4) {
-                displayMat = new Mat();
-                cvtColor(mat, displayMat, COLOR_BGRA2RGB);
-            } else {
-                System.err.println("Format Mat tidak didukung: " + mat.channels() + " channels");
-                return null;
-            }
+    /*
+     * Sudut di resolusi penuh, null jika dokumen tidak terdeteksi.
+     */
+    private CornerQuad detectCorners(Mat input, double inputScale, Supplier<Mat> fullResolution,
+            ScanOptions options) {
+        try (DetectionResult detection = edgeDetector.detect(input, inputScale, fullResolution,
+                options.getProfile())) {
+            debugSink.write("scanner/02_edges", detection.getEdges());
+
+            Point2f[] points = detection.getCorners();
+            return points != null ? CornerQuad.fromPoints(points, detection.getConfidence()) : null;
+        }
+    }
+
+    /*
+     * Input (halaman hasil koreksi) hanya dibaca.
+     */
+    private Mat filter(Mat corrected, ScanOptions options) {
+        long filterStart = System.nanoTime();
+        Mat filtered = imageFilter.applyFilter(corrected, options.getFilterType(), options.getProfile());
+        metrics.record(Stage.FILTER, filterStart);
+        if (filtered == null || filtered.empty()) {
+            metrics.filterFailed();
+            throw new RuntimeException("Filter gagal diterapkan");
+        }
+        debugSink.write("scanner/04_filtered", filtered);
+        return filtered;
+    }
 
-            OpenCVFrameConverter.ToMat matConverter = new OpenCVFrameConverter.ToMat();
-            Frame frame = matConverter.convert(displayMat);
-            if (frame == null) {
-                System.err.println("Gagal mengkonversi Mat ke Frame");
-                if (displayMat != mat)
-                    displayMat.release();
-                return null;
+    /*
+     * Jalur file-ke-file: decode dengan OpenCV, proses sebagai Mat, lalu encode langsung
+     * ke file output. Pixel tidak pernah melewati JavaFX maupun AWT (kecuali untuk PDF).
+     * Jika file yang sama (isi byte, bukan nama) sudah pernah diproses dengan opsi yang sama,
+     * output diambil dari ResultCache tanpa menjalankan pipeline.
+     */
+    public void processFile(File inputFile, File outputFile, ScanOptions options) {
+        if (!resultCache.isEnabled()) {
+            saveOutput(processFile(inputFile, options), outputFile, options);
+            return;
+        }
+
+        ImageSource image = ImageSource.open(inputFile);
+        String source = image.hash();
+        CornerQuad locked = perspectiveCorrector.getLockedCorners();
+        byte[] cached = resultCache.getOutput(source, options, locked);
+        if (cached != null) {
+            System.out.println("Memakai output dari cache untuk " + inputFile.getName());
+            try {
+                Files.write(outputFile.toPath(), cached);
+            } catch (IOException e) {
+                throw new RuntimeException("Gagal menyimpan hasil ke " + outputFile, e);
             }
+            return;
+        }
 
-            Java2DFrameConverter java2DConverter = new Java2DFrameConverter();
-            BufferedImage bufferedImage = java2DConverter.convert(frame);
-            if (bufferedImage == null) {
-                System.err.println("Gagal mengkonversi Frame ke BufferedImage");
-                if (displayMat != mat)
-                    displayMat.release();
-                return null;
+        byte[] encoded = saveOutput(processSource(image, options, source), outputFile, options);
+        if (options.isFixedRig() && perspectiveCorrector.getLockedCorners() != locked) {
+            // Rig dikalibrasi ulang selama scan: tidak jelas sudut mana yang dipakai, jangan disimpan
+            return;
+        }
+        resultCache.putOutput(source, options, locked, encoded);
+    }
+
+    /*
+     * Mengembalikan isi file yang ditulis.
+     */
+    private byte[] saveOutput(Mat filtered, File outputFile, ScanOptions options) {
+        try {
+            byte[] encoded = exportHandler.exportMat(filtered, outputFile, options.getOutputFormat());
+            if (encoded == null) {
+                throw new RuntimeException("Gagal menyimpan hasil ke " + outputFile);
             }
+            return encoded;
+        } finally {
+            filtered.release();
+        }
+    }
 
-            // Convert to JavaFX compatible format
-            BufferedImage compatibleImage = new BufferedImage(
-                    bufferedImage.getWidth(),
-                    bufferedImage.getHeight(),
-                    BufferedImage.TYPE_INT_RGB);
-            java.awt.Graphics2D g2d = compatibleImage.createGraphics();
-            g2d.drawImage(bufferedImage, 0, 0, null);
-            g2d.dispose();
+    /*
+     * Decode lalu proses; Mat hasil harus di-release oleh pemanggil.
+     * Dipakai misalnya untuk menggabungkan banyak scan ke satu PDF. Hanya sudut yang
+     * diambil dari ResultCache (hasilnya Mat, bukan file ter-encode).
+     */
+    public Mat processFile(File inputFile, ScanOptions options) {
+        if (resultCache.isEnabled()) {
+            ImageSource image = ImageSource.open(inputFile);
+            return processSource(image, options, image.hash());
+        }
 
-            Image resultImage = SwingFXUtils.toFXImage(compatibleImage, null);
+        long decodeStart = System.nanoTime();
+        Mat original = imread(inputFile.getAbsolutePath(), IMREAD_COLOR);
+        metrics.record(Stage.DECODE, decodeStart);
+        if (original == null || original.empty()) {
+            throw new RuntimeException("Gagal membaca gambar: " + inputFile);
+        }
 
-            // Cleanup if we created new Mat
-            if (displayMat != mat) {
-                displayMat.release();
-            }
+        try {
+            return process(original, options, inputFile.getName(), null);
+        } finally {
+            original.release();
+        }
+    }
 
-            return resultImage;
+    /*
+     * File sudah di-map untuk hash, jadi decode langsung dari mapping tersebut
+     * agar file tidak dibaca dua kali.
+     */
+    private Mat processSource(ImageSource image, ScanOptions options, String source) {
+        Mat original = image.decode();
+        try {
+            return process(original, options, image.getFile().getName(), source);
+        } finally {
+            original.release();
+        }
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error dalam matToImage: " + e.getMessage());
-            e.printStackTrace();
-            return null;
+    EdgeDetector getEdgeDetector() {
+        return edgeDetector;
+    }
+
+    public CornerDetectorChain getCornerDetectors() {
+        return edgeDetector.getCornerDetectors();
+    }
+
+    public void saveImage(Image image, File file, String format) {
+        exportHandler.saveImage(image, file, format);
+    }
+
+    @Override
+    public void close() {
+        edgeDetector.close();
+    }
+
+    /*
+     * Decode ImageSource yang baru dijalankan saat pertama kali dibutuhkan.
+     */
+    private static final class LazyDecode implements Supplier<Mat>, AutoCloseable {
+        private final ImageSource source;
+        private final int reduction;
+        private Mat image;
+
+        LazyDecode(ImageSource source, int reduction) {
+            this.source = source;
+            this.reduction = reduction;
+        }
+
+        @Override
+        public Mat get() {
+            if (image == null) {
+                image = source.decode(reduction);
+            }
+            return image;
+        }
+
+        @Override
+        public void close() {
+            if (image != null) {
+                image.release();
+            }
         }
     }
-}
\ No newline at end of file
+}
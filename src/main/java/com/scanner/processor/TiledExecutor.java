@@ -0,0 +1,133 @@
+package com.scanner.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+/*
+ * Menjalankan operasi lokal (denoise, sharpen) per tile secara paralel di ForkJoinPool.
+ *
+ * - Ukuran tile mengikuti "scanner.tiles.cacheKB" (default 512): satu tile input
+ *   muat di cache L2 sehingga filter tidak berulang kali membaca dari RAM.
+ * - Setiap tile diambil bersama halo (pixel tetangga) selebar radius operasi, diproses
+ *   sebagai Mat tersendiri, lalu hanya bagian intinya yang disalin ke output. Karena
+ *   semua pixel yang mempengaruhi inti ada di dalam tile, dan tile di tepi gambar memakai
+ *   tepi gambar yang sebenarnya, hasilnya identik dengan operasi pada gambar utuh:
+ *   tidak ada sambungan yang perlu di-blend.
+ * - Langkah global (Otsu, statistik CLAHE) tidak boleh dijalankan lewat sini.
+ * - applyRows membagi pekerjaan per pita baris untuk operasi yang membaca/menulis buffer
+ *   Mat sendiri (AdaptiveBinarizer); halo menjadi urusan operasinya.
+ *
+ * Pool dipakai bersama semua scan ("scanner.tiles.threads", default jumlah core, 1 = tanpa
+ * tile), jadi scan paralel di batch mode tidak membuat thread lebih banyak dari core.
+ */
+final class TiledExecutor {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1,
+            Integer.getInteger("scanner.tiles.threads", Runtime.getRuntime().availableProcessors())));
+    private static final long TILE_BYTES = Long.getLong("scanner.tiles.cacheKB", 512) * 1024;
+    // Tile lebih kecil dari ini membuat halo mendominasi
+    private static final int MIN_TILE_SIDE = 128;
+
+    /*
+     * Operasi yang hasilnya untuk setiap pixel hanya bergantung pada tetangga
+     * dalam radius halo. dst berukuran dan bertipe sama dengan src.
+     */
+    interface TileOperation {
+        void apply(Mat src, Mat dst);
+    }
+
+    /*
+     * Mengerjakan baris [top, bottom) dari gambar.
+     */
+    interface BandOperation {
+        void apply(int top, int bottom);
+    }
+
+    private TiledExecutor() {
+    }
+
+    static void apply(Mat src, Mat dst, int halo, TileOperation operation) {
+        int side = tileSide(src);
+        if (POOL.getParallelism() <= 1 || (src.cols() <= side && src.rows() <= side)) {
+            operation.apply(src, dst);
+            return;
+        }
+
+        dst.create(src.rows(), src.cols(), src.type());
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int top = 0; top < src.rows(); top += side) {
+            for (int left = 0; left < src.cols(); left += side) {
+                Rect core = new Rect(left, top, Math.min(side, src.cols() - left), Math.min(side, src.rows() - top));
+                tasks.add(POOL.submit(() -> applyTile(src, dst, core, halo, operation)));
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    /*
+     * Membagi rows baris menjadi pita minimal minBandRows baris, sekitar empat pita per thread
+     * supaya pita yang lebih lambat tidak membuat thread lain menganggur.
+     */
+    static void applyRows(int rows, int minBandRows, BandOperation operation) {
+        int parallelism = POOL.getParallelism();
+        int bandRows = Math.max(minBandRows, (rows + parallelism * 4 - 1) / (parallelism * 4));
+        if (parallelism <= 1 || bandRows >= rows) {
+            operation.apply(0, rows);
+            return;
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int top = 0; top < rows; top += bandRows) {
+            int bandTop = top;
+            int bandBottom = Math.min(rows, top + bandRows);
+            tasks.add(POOL.submit(() -> operation.apply(bandTop, bandBottom)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    /*
+     * Dijalankan di thread pool (di luar ScanScope thread scan), jadi semua Mat
+     * di sini di-release sendiri.
+     */
+    private static void applyTile(Mat src, Mat dst, Rect core, int halo, TileOperation operation) {
+        int left = Math.max(0, core.x() - halo);
+        int top = Math.max(0, core.y() - halo);
+        int right = Math.min(src.cols(), core.x() + core.width() + halo);
+        int bottom = Math.min(src.rows(), core.y() + core.height() + halo);
+
+        Mat view = new Mat(src, new Rect(left, top, right - left, bottom - top));
+        // Salinan kontinu: beberapa filter (NL-means) memperlakukan tepi ROI sebagai tepi gambar
+        Mat tile = view.clone();
+        Mat processed = new Mat();
+        Mat target = new Mat(dst, core);
+        try {
+            operation.apply(tile, processed);
+            Mat processedCore = new Mat(processed,
+                    new Rect(core.x() - left, core.y() - top, core.width(), core.height()));
+            processedCore.copyTo(target);
+            processedCore.release();
+        } finally {
+            target.release();
+            processed.release();
+            tile.release();
+            view.release();
+        }
+    }
+
+    /*
+     * Sisi tile (persegi) sehingga satu tile input sekitar TILE_BYTES.
+     */
+    private static int tileSide(Mat src) {
+        long bytesPerPixel = Math.max(1, src.elemSize());
+        return Math.max(MIN_TILE_SIDE, (int) Math.sqrt((double) TILE_BYTES / bytesPerPixel));
+    }
+}
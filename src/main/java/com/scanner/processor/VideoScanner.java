@@ -0,0 +1,230 @@
+package com.scanner.processor;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.COLOR_BGR2GRAY;
+import static org.bytedeco.opencv.global.opencv_imgproc.cvtColor;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.FrameGrabber;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point2f;
+
+import com.scanner.metrics.ScanMetrics;
+import com.scanner.metrics.Stage;
+
+/*
+ * Scan dari video (file atau kamera lewat FFmpegFrameGrabber / OpenCVFrameGrabber).
+ *
+ * Per frame:
+ * - deteksi penuh (EdgeDetector) hanya setiap N frame ("detectEvery") atau saat tracking hilang
+ * - di antaranya 4 sudut diikuti dengan Lucas-Kanade (CornerTracker) pada frame grayscale
+ *   seukuran resolusi deteksi profil
+ * - jika quad diam (sudut bergeser < 1.5 pixel tracking) selama K frame ("stableFrames"),
+ *   halaman di-capture: sudut diperhalus di resolusi penuh, lalu warp + filter seperti scan biasa
+ * - setelah capture, halaman berikutnya baru di-capture jika quad bergeser jauh (halaman
+ *   dibalik/diganti) atau dokumen sempat hilang dari frame
+ *
+ * Semua memori native per frame terikat ke ScanScope frame tersebut.
+ */
+public class VideoScanner {
+
+    // Pergeseran sudut maksimum (pixel resolusi tracking) sejak awal deretan diam; diukur dari
+    // awal deretan, bukan antar frame, supaya geser pelan tidak dianggap diam
+    private static final double STABLE_MOTION = 1.5;
+    // Pergeseran dari quad terakhir yang di-capture (relatif terhadap diagonal) untuk halaman baru
+    private static final double NEW_PAGE_MOTION = 0.05;
+    // Toleransi saat sudut berasal dari deteksi ulang berkala: hasil deteksi sedikit berbeda dari
+    // hasil tracking walau dokumen diam, jadi deretan diam tetap dilanjutkan selama masih sepakat
+    private static final double REDETECT_MOTION = 4.0;
+
+    /*
+     * Menerima setiap halaman yang di-capture. Mat hasil milik penerima.
+     */
+    public interface PageListener {
+        void onPage(int pageNumber, long frameNumber, Mat page);
+    }
+
+    private final ScannerProcessor processor;
+    private final ScanOptions options;
+    private final int detectEvery;
+    private final int stableFrames;
+    private final ScanMetrics metrics = ScanMetrics.getInstance();
+
+    private final CornerTracker tracker = new CornerTracker();
+    private long frameNumber;
+    private long detections;
+    // Quad di awal deretan frame diam
+    private CornerQuad stableAnchor;
+    private int stableCount;
+    private CornerQuad capturedCorners;
+    private boolean armed = true;
+    private int pages;
+
+    public VideoScanner(ScannerProcessor processor, ScanOptions options, int detectEvery, int stableFrames) {
+        this.processor = processor;
+        this.options = options;
+        this.detectEvery = Math.max(1, detectEvery);
+        this.stableFrames = Math.max(1, stableFrames);
+    }
+
+    /*
+     * Membaca grabber sampai habis (file) atau sampai thread di-interrupt (kamera).
+     * Grabber dijalankan dan dihentikan di sini. Mengembalikan jumlah halaman.
+     */
+    public int scan(FrameGrabber grabber, PageListener listener) throws FrameGrabber.Exception {
+        OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
+        grabber.start();
+        try {
+            Frame frame;
+            while (!Thread.currentThread().isInterrupted() && (frame = grabber.grab()) != null) {
+                if (frame.image == null) {
+                    // Frame audio
+                    continue;
+                }
+                // Header di atas buffer frame milik grabber, tidak ada copy
+                Mat mat = converter.convert(frame);
+                if (mat != null && !mat.empty()) {
+                    processFrame(mat, listener);
+                }
+            }
+        } finally {
+            grabber.stop();
+            grabber.release();
+            tracker.release();
+        }
+        return pages;
+    }
+
+    public long getFrameCount() {
+        return frameNumber;
+    }
+
+    public long getDetectionCount() {
+        return detections;
+    }
+
+    void processFrame(Mat frame, PageListener listener) {
+        frameNumber++;
+        ScanScope scope = ScanScope.open();
+        try {
+            double scale = Math.min(1.0,
+                    (double) options.getProfile().getDetectionMaxSize() / Math.max(frame.cols(), frame.rows()));
+            Mat gray = trackingGray(frame, scale);
+
+            CornerQuad corners = null;
+            boolean detected = false;
+            boolean redetect = !tracker.isTracking() || frameNumber % detectEvery == 0;
+            if (!redetect) {
+                long trackStart = System.nanoTime();
+                corners = tracker.track(gray);
+                metrics.record(Stage.TRACKING, trackStart);
+            }
+            if (corners == null) {
+                corners = detect(frame, scale);
+                detected = true;
+                if (corners != null) {
+                    tracker.reset(gray, corners);
+                } else {
+                    tracker.lose(gray);
+                }
+            }
+
+            updateCapture(frame, scale, corners, detected, listener);
+        } finally {
+            scope.close();
+        }
+    }
+
+    /*
+     * Frame grayscale di resolusi tracking. Disimpan tracker antar frame, jadi di luar MatPool
+     * dan tidak ikut dibebaskan ScanScope frame ini.
+     */
+    private static Mat trackingGray(Mat frame, double scale) {
+        Mat small = EdgeDetector.downscale(frame, scale);
+        Mat gray = ScanScope.retain(new Mat());
+        cvtColor(small, gray, COLOR_BGR2GRAY);
+        small.release();
+        return gray;
+    }
+
+    /*
+     * Deteksi penuh; sudut dikembalikan dalam koordinat resolusi tracking.
+     */
+    private CornerQuad detect(Mat frame, double scale) {
+        detections++;
+        try (DetectionResult detection = processor.getEdgeDetector().detect(frame, options.getProfile())) {
+            Point2f[] points = detection.getCorners();
+            if (points == null) {
+                return null;
+            }
+            float[] coords = new float[8];
+            for (int i = 0; i < 4; i++) {
+                coords[i * 2] = (float) (points[i].x() * scale);
+                coords[i * 2 + 1] = (float) (points[i].y() * scale);
+            }
+            return new CornerQuad(coords, detection.getConfidence());
+        }
+    }
+
+    private void updateCapture(Mat frame, double scale, CornerQuad corners, boolean detected,
+            PageListener listener) {
+        if (corners == null) {
+            // Dokumen hilang dari frame: halaman berikutnya boleh di-capture
+            stableAnchor = null;
+            stableCount = 0;
+            armed = true;
+            return;
+        }
+        if (!armed && capturedCorners != null
+                && maxDisplacement(capturedCorners, corners) > NEW_PAGE_MOTION * diagonal(corners)) {
+            armed = true;
+        }
+
+        if (stableAnchor != null && maxDisplacement(stableAnchor, corners) < STABLE_MOTION) {
+            stableCount++;
+        } else if (detected && stableAnchor != null
+                && maxDisplacement(stableAnchor, corners) < REDETECT_MOTION) {
+            // Tracker di-reset ke sudut hasil deteksi; anchor ikut pindah supaya frame berikutnya
+            // dibandingkan dengan titik yang sama, hitungan diam tidak diulang dari nol
+            stableAnchor = corners;
+            stableCount++;
+        } else {
+            stableAnchor = corners;
+            stableCount = 0;
+        }
+        if (armed && stableCount >= stableFrames) {
+            capture(frame, scale, corners, listener);
+        }
+    }
+
+    private void capture(Mat frame, double scale, CornerQuad corners, PageListener listener) {
+        // Sudut tracking diperhalus di resolusi penuh (cornerSubPix) sebelum warp
+        Point2f[] refined = processor.getEdgeDetector().refineCorners(frame, corners, scale);
+        Mat page;
+        try {
+            page = processor.process(frame, CornerQuad.fromPoints(refined, corners.getConfidence()), options,
+                    "video_" + frameNumber);
+        } catch (RuntimeException e) {
+            System.err.println("Capture frame " + frameNumber + " gagal: " + e.getMessage());
+            return;
+        }
+        pages++;
+        armed = false;
+        capturedCorners = corners;
+        stableAnchor = null;
+        stableCount = 0;
+        System.out.println("Halaman " + pages + " di-capture dari frame " + frameNumber);
+        listener.onPage(pages, frameNumber, page);
+    }
+
+    private static double maxDisplacement(CornerQuad a, CornerQuad b) {
+        double max = 0;
+        for (int i = 0; i < 4; i++) {
+            max = Math.max(max, Math.hypot(a.x(i) - b.x(i), a.y(i) - b.y(i)));
+        }
+        return max;
+    }
+
+    private static double diagonal(CornerQuad quad) {
+        return Math.hypot(quad.x(2) - quad.x(0), quad.y(2) - quad.y(0));
+    }
+}